@@ -0,0 +1,16 @@
+/*
+ * File: Animation.java
+ * --------------------
+ * Something that moves on the canvas, one frame at a time, driven by
+ * AnimationClock.
+ */
+
+public interface Animation {
+
+	/**
+	 * Advances one frame. Returns false once the animation is over,
+	 * after which it is not stepped again.
+	 */
+	boolean step();
+
+}
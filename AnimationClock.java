@@ -0,0 +1,134 @@
+/*
+ * File: AnimationClock.java
+ * -------------------------
+ * One clock for every animation in the game (snow, falling surprise,
+ * timed labels). A single scheduler thread posts one frame at a time
+ * to the SceneQueue, where all registered animations are stepped on
+ * the event-dispatch thread and repainted once. A frame is not posted
+ * while the previous one is still waiting, so a busy EDT drops frames
+ * instead of piling them up. When nothing is registered the clock is
+ * cancelled, so it uses no CPU while players sit in dialogs.
+ */
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class AnimationClock {
+
+	private final long frameMillis;
+	private final SceneQueue scene;
+	private final AtomicBoolean framePending = new AtomicBoolean(false);
+	private final CopyOnWriteArrayList<Animation> animations = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "AnimationClock");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile long lastFrameNanos = 0;
+	private ScheduledFuture<?> ticking = null;
+	private boolean stopped = false;
+
+	/**
+	 * Frames are applied, and repainted, through scene
+	 */
+	public AnimationClock(long frameMillis, SceneQueue scene) {
+		this.frameMillis = frameMillis;
+		this.scene = scene;
+	}
+
+	/**
+	 * Starts stepping animation every frame, waking the clock if it was idle.
+	 * Registering an animation that is already running does nothing.
+	 */
+	public synchronized void register(Animation animation) {
+		if (stopped || animations.contains(animation)) {
+			return;
+		}
+		GameEvents.AnimationStart event = new GameEvents.AnimationStart();
+		animations.add(animation);
+		boolean woke = ticking == null;
+		if (woke) {
+			ticking = scheduler.scheduleAtFixedRate(this::tick, 0, frameMillis, TimeUnit.MILLISECONDS);
+		}
+		if (event.shouldCommit()) {
+			event.animation = animation.getClass().getName();
+			event.wokeClock = woke;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Stops stepping animation
+	 */
+	public synchronized void unregister(Animation animation) {
+		animations.remove(animation);
+		parkIfIdle();
+	}
+
+	/**
+	 * Number of animations currently running
+	 */
+	public int running() {
+		return animations.size();
+	}
+
+	/**
+	 * How long stepping every animation took in the last frame
+	 */
+	public long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	/**
+	 * Cancels every animation and ends the clock thread for good
+	 */
+	public synchronized void stop() {
+		stopped = true;
+		animations.clear();
+		scheduler.shutdownNow();
+		ticking = null;
+	}
+
+	/*
+	 * Runs on the clock thread: posts a frame unless one is still queued
+	 */
+	private void tick() {
+		if (framePending.compareAndSet(false, true)) {
+			scene.post(this::frame);
+		}
+	}
+
+	/*
+	 * Runs on the EDT: step everything and drop what finished. The
+	 * SceneQueue repaints after the batch.
+	 */
+	private void frame() {
+		framePending.set(false);
+		long start = System.nanoTime();
+		for (Animation animation : animations) {
+			boolean alive;
+			try {
+				alive = animation.step();
+			} catch (RuntimeException e) {
+				e.printStackTrace(); // a broken animation must not stop the others
+				alive = false;
+			}
+			if (!alive) {
+				unregister(animation);
+			}
+		}
+		lastFrameNanos = System.nanoTime() - start;
+	}
+
+	private void parkIfIdle() {
+		if (animations.isEmpty() && ticking != null) {
+			ticking.cancel(false);
+			ticking = null;
+		}
+	}
+
+}
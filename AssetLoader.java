@@ -0,0 +1,191 @@
+/*
+ * File: AssetLoader.java
+ * ----------------------
+ * Loads the game's images and sounds in parallel, in the background,
+ * while players are still typing into the setup dialogs. Images are
+ * decoded and scaled to the size they are drawn at, sounds are decoded
+ * into the SoundPlayer cache. Each asset's load time is recorded.
+ */
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import acm.util.ErrorException;
+
+public class AssetLoader {
+
+	private final SoundPlayer sounds;
+	private final List<Runnable> pending = new ArrayList<>();
+	private final List<CompletableFuture<?>> loads = new ArrayList<>();
+	private final Map<String, CompletableFuture<Image>> images = new ConcurrentHashMap<>();
+	private final Map<String, Long> loadNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+	private volatile CompletableFuture<Void> ready;
+	private ExecutorService executor;
+
+	public AssetLoader(SoundPlayer sounds) {
+		this.sounds = sounds;
+	}
+
+	/**
+	 * Adds a sound to be decoded into the SoundPlayer cache
+	 */
+	public void addSound(String name) {
+		pending.add(() -> loads.add(CompletableFuture.runAsync(() -> timed(name, () -> {
+			sounds.load(name);
+			return null;
+		}), executor)));
+	}
+
+	/**
+	 * Adds an image to be decoded and scaled to width x height
+	 */
+	public void addImage(String name, int width, int height) {
+		CompletableFuture<Image> image = new CompletableFuture<>();
+		images.put(name, image);
+		pending.add(() -> {
+			loads.add(image);
+			executor.execute(() -> {
+				try {
+					image.complete(timed(name, () -> scaledImage(name, width, height)));
+				} catch (RuntimeException e) {
+					image.completeExceptionally(e);
+				}
+			});
+		});
+	}
+
+	/**
+	 * Starts loading everything added so far, one task per asset
+	 */
+	public void start() {
+		executor = Executors.newFixedThreadPool(Math.max(1, Math.min(pending.size(),
+				Runtime.getRuntime().availableProcessors())), runnable -> {
+					Thread thread = new Thread(runnable, "AssetLoader");
+					thread.setDaemon(true);
+					return thread;
+				});
+		for (Runnable load : pending) {
+			load.run();
+		}
+		pending.clear();
+		ready = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+		ready.whenComplete((result, error) -> executor.shutdown());
+	}
+
+	/**
+	 * Returns true once every asset has finished loading
+	 */
+	public boolean isReady() {
+		return ready != null && ready.isDone();
+	}
+
+	/**
+	 * Blocks until every asset is loaded. Returns at once if it already is.
+	 * Only valid after start.
+	 */
+	public void awaitReady() {
+		CompletableFuture<Void> ready = this.ready;
+		if (ready == null) {
+			throw new ErrorException("Assets were never started");
+		}
+		if (!ready.isDone()) {
+			join(ready);
+		}
+	}
+
+	/**
+	 * Returns the scaled image, waiting for it if it is still loading
+	 */
+	public Image getImage(String name) {
+		CompletableFuture<Image> image = images.get(name);
+		if (image == null) {
+			throw new ErrorException("Image was never added: " + name);
+		}
+		return join(image);
+	}
+
+	/**
+	 * Milliseconds each loaded asset took, in the order they finished
+	 */
+	public Map<String, Double> getLoadTimes() {
+		Map<String, Double> times = new LinkedHashMap<>();
+		synchronized (loadNanos) {
+			for (Map.Entry<String, Long> entry : loadNanos.entrySet()) {
+				times.put(entry.getKey(), entry.getValue() / 1e6);
+			}
+		}
+		return times;
+	}
+
+	private <T> T timed(String name, java.util.function.Supplier<T> load) {
+		long start = System.nanoTime();
+		T result = load.get();
+		loadNanos.put(name, System.nanoTime() - start);
+		return result;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new ErrorException(cause.toString());
+		}
+	}
+
+	/*
+	 * Decodes the image once and draws it into a buffer of the size it
+	 * will be shown at, so drawing it later never rescales
+	 */
+	private static Image scaledImage(String name, int width, int height) {
+		GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+		event.begin();
+		try {
+			return decodeAndScale(name, width, height);
+		} finally {
+			event.name = name;
+			event.kind = "image";
+			event.commit();
+		}
+	}
+
+	private static Image decodeAndScale(String name, int width, int height) {
+		BufferedImage source;
+		try {
+			File file = new File(name);
+			source = file.exists() ? ImageIO.read(file) : ImageIO.read(AssetLoader.class.getResource("/" + name));
+		} catch (IOException | IllegalArgumentException e) {
+			throw new ErrorException("Cannot load image " + name + ": " + e.getMessage());
+		}
+		if (source == null) {
+			throw new ErrorException("Cannot decode image " + name);
+		}
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+}
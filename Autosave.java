@@ -0,0 +1,96 @@
+/*
+ * File: Autosave.java
+ * -------------------
+ * Keeps the latest GameSnapshot on disk. Snapshots are written on one
+ * background thread, in the order they were saved, so the game never
+ * waits for the disk; if several pile up only the newest is written.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Autosave {
+
+/** File the game saves to, next to the program */
+	public static final String DEFAULT_FILE = "yahtzee-autosave.bin";
+
+	private final File file;
+	private final AtomicReference<GameSnapshot> latest = new AtomicReference<>();
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Autosave");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public Autosave(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the saved game, or null if there is none or it cannot be
+	 * read (then a new game is started instead)
+	 */
+	public GameSnapshot load() {
+		try {
+			return GameSnapshot.read(file);
+		} catch (IOException e) {
+			System.err.println("Ignoring saved game " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Queues snapshot to be written; returns at once
+	 */
+	public void save(GameSnapshot snapshot) {
+		if (latest.getAndSet(snapshot) == null) {
+			writer.execute(this::writeLatest);
+		}
+	}
+
+	/*
+	 * Runs on the writer thread. A failed save is reported and the game
+	 * goes on; the previous snapshot stays in place.
+	 */
+	private void writeLatest() {
+		GameSnapshot snapshot = latest.getAndSet(null);
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			snapshot.write(file);
+		} catch (IOException e) {
+			System.err.println("Cannot save game to " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Deletes the saved game once every queued save is done, for when
+	 * the game is over
+	 */
+	public void discard() {
+		latest.set(null);
+		writer.execute(() -> {
+			if (file.exists() && !file.delete()) {
+				System.err.println("Cannot delete saved game " + file);
+			}
+		});
+	}
+
+	/**
+	 * Finishes queued work and stops the writer thread
+	 */
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * File: BotPolicy.java
+ * --------------------
+ * The computer opponent. For a reroll it tries all 32 hold masks and
+ * looks ahead through the rerolls left with DiceTransitions, valuing
+ * each final roll by its best open category. A category is worth its
+ * score minus what that category averages when chased for a whole turn,
+ * so cheap categories are not spent on good dice, plus progress towards
+ * the upper bonus. Each decision is a few thousand table reads, well
+ * inside a millisecond, and needs no solver table. A look-ahead that
+ * runs past BUDGET_NANOS anyway (a descheduled thread, a cold JIT) is
+ * cut short and the reroll is chosen on the final roll alone.
+ *
+ * One instance per thread, because it keeps its own scratch arrays.
+ */
+
+public class BotPolicy implements GamePolicy, YahtzeeConstants2 {
+
+	/* weight of being ahead of or behind 3 of a face in the upper section */
+	private static final double UPPER_PAR_WEIGHT = 0.5;
+
+	/* expected score of each slot when a whole turn chases only it */
+	private static final double[] BASELINE = new double[N_SCORING_CATEGORIES];
+
+	private static final int ALL_DICE = (1 << N_DICE) - 1;
+
+	/** Time one decision is allowed to take */
+	public static final long BUDGET_NANOS = 1000000;
+
+	/* keeps looked at between two looks at the clock */
+	private static final int KEEPS_PER_CLOCK_CHECK = 64;
+
+	static {
+		RerollAdvisor tables = RerollAdvisor.shared();
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			BASELINE[slot] = tables.baseline(YahtzeeScorer.categoryOf(slot));
+		}
+	}
+
+	private final double[] stopValues = new double[YahtzeeScorer.N_ROLLS];
+	private final double[] oneRerollValues = new double[YahtzeeScorer.N_ROLLS];
+	private final double[] keepValues = new double[DiceTransitions.N_KEEPS];
+	private long decisions = 0;
+	private long decisionNanos = 0;
+	private long slowestNanos = 0;
+	private long overBudget = 0;
+	private long cutShort = 0;
+
+	@Override
+	public int chooseReroll(int[] dice, int rerollsLeft, int usedMask, int upper) {
+		long start = System.nanoTime();
+		fillStopValues(usedMask, upper);
+		double[] values = stopValues;
+		if (rerollsLeft > 1) {
+			double[] ahead = lookAhead(stopValues, keepValues, oneRerollValues, start + BUDGET_NANOS);
+			if (ahead != null) {
+				values = ahead;
+			} else {
+				cutShort++; // out of time: as if this were the last reroll
+			}
+		}
+		int bestMask = 0;
+		double best = Double.NEGATIVE_INFINITY;
+		for (int mask = 0; mask <= ALL_DICE; mask++) { // mask 0 holds everything, i.e. stops
+			double value = DiceTransitions.expected(DiceTransitions.keepOf(dice, mask), values);
+			if (value > best + 1e-9) {
+				best = value;
+				bestMask = mask;
+			}
+		}
+		timed(start);
+		return bestMask;
+	}
+
+	@Override
+	public int chooseCategory(int[] dice, int usedMask, int upper) {
+		long start = System.nanoTime();
+		int roll = YahtzeeScorer.indexOf(YahtzeeScorer.encode(dice));
+		int bestCategory = -1;
+		double best = Double.NEGATIVE_INFINITY;
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			if ((usedMask & (1 << slot)) == 0) {
+				int category = YahtzeeScorer.categoryOf(slot);
+				double value = value(roll, category, slot, upper);
+				if (value > best) {
+					best = value;
+					bestCategory = category;
+				}
+			}
+		}
+		timed(start);
+		return bestCategory;
+	}
+
+	/** Mean time of a reroll or category decision, in nanoseconds */
+	public double getMeanDecisionNanos() {
+		return decisions == 0 ? 0 : (double) decisionNanos / decisions;
+	}
+
+	/** Decisions so far */
+	public long getDecisions() {
+		return decisions;
+	}
+
+	/** Decisions that took longer than BUDGET_NANOS */
+	public long getOverBudgetDecisions() {
+		return overBudget;
+	}
+
+	/** Rerolls chosen without the look-ahead because time ran out */
+	public long getCutShortDecisions() {
+		return cutShort;
+	}
+
+	/** Slowest decision so far, in nanoseconds */
+	public long getSlowestDecisionNanos() {
+		return slowestNanos;
+	}
+
+	private void timed(long start) {
+		long nanos = System.nanoTime() - start;
+		decisions++;
+		decisionNanos += nanos;
+		slowestNanos = Math.max(slowestNanos, nanos);
+		if (nanos > BUDGET_NANOS) {
+			overBudget++;
+		}
+	}
+
+	/*
+	 * Value of stopping at each roll: its best open category
+	 */
+	private void fillStopValues(int usedMask, int upper) {
+		java.util.Arrays.fill(stopValues, Double.NEGATIVE_INFINITY);
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			if ((usedMask & (1 << slot)) != 0) {
+				continue;
+			}
+			int category = YahtzeeScorer.categoryOf(slot);
+			for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+				stopValues[roll] = Math.max(stopValues[roll], value(roll, category, slot, upper));
+			}
+		}
+	}
+
+	/*
+	 * How good it is to put roll into category given the upper subtotal
+	 */
+	private static double value(int roll, int category, int slot, int upper) {
+		return categoryValue(YahtzeeScorer.scoreOfIndex(roll, category), category, slot, upper);
+	}
+
+	/*
+	 * The same for a score, or an expected score as RerollAdvisor rates
+	 * holds with
+	 */
+	static double categoryValue(double score, int category, int slot, int upper) {
+		double value = score - BASELINE[slot];
+		if (category <= SIXES) {
+			value += UPPER_PAR_WEIGHT * (score - 3 * category);
+			if (upper < UPPER_BONUS_THRESHOLD && upper + score >= UPPER_BONUS_THRESHOLD) {
+				value += UPPER_BONUS_POINTS;
+			}
+		}
+		return value;
+	}
+
+	/*
+	 * Value of each roll with one more reroll to go, given the value of
+	 * each roll after it: the best of its keeps (keeping all is stopping).
+	 * Returns null if System.nanoTime() passes deadline first.
+	 */
+	private static double[] lookAhead(double[] after, double[] keeps, double[] out, long deadline) {
+		for (int keep = 0; keep < DiceTransitions.N_KEEPS; keep++) {
+			if (keep % KEEPS_PER_CLOCK_CHECK == 0 && System.nanoTime() > deadline) {
+				return null;
+			}
+			keeps[keep] = DiceTransitions.expected(keep, after);
+		}
+		for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = DiceTransitions.rollKeepStart(roll); i < DiceTransitions.rollKeepEnd(roll); i++) {
+				best = Math.max(best, keeps[DiceTransitions.rollKeep(i)]);
+			}
+			out[roll] = best;
+		}
+		return out;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * File: DiceSource.java
+ * ---------------------
+ * Where the random numbers of a game come from: dice, the falling
+ * surprise and SANTA. A game owns its source and nothing else draws
+ * from it, so the same seed plays the same game however much the
+ * window animates in between. Sources are not thread-safe; a thread
+ * that needs its own stream takes one with split().
+ */
+
+public interface DiceSource {
+
+	/**
+	 * Rolls the dice whose bit is set in rerollMask (bit n means die n,
+	 * like GamePolicy.chooseReroll) and leaves the others alone. dice
+	 * holds at most N_DICE dice; use nextInt for more.
+	 */
+	void roll(int[] dice, int rerollMask);
+
+	/**
+	 * Returns a uniform int in 0..bound-1
+	 */
+	int nextInt(int bound);
+
+	/**
+	 * Returns a uniform double in [0, 1)
+	 */
+	double nextDouble();
+
+	/**
+	 * Returns a new, independent source. The stream of this source
+	 * after the call does not depend on how much the new one is used.
+	 */
+	DiceSource split();
+
+	/**
+	 * The default source, reproducible from seed
+	 */
+	static DiceSource seeded(long seed) {
+		return new PackedDiceSource(seed);
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * File: DiceTransitions.java
+ * --------------------------
+ * Precomputed reroll probabilities. A "keep" is the multiset of dice a
+ * player holds before rolling again (0 to 5 dice, 462 of them). For
+ * every keep we store which of the 252 rolls it can turn into and with
+ * what probability, and for every roll we store the distinct keeps it
+ * can be reduced to. Keys use the same packing as YahtzeeScorer.
+ */
+
+public final class DiceTransitions implements YahtzeeConstants2 {
+
+/** The number of distinct keeps (multisets of 0..5 dice) */
+	public static final int N_KEEPS = 462;
+
+	private static final int KEY_SPACE = 1 << (YahtzeeScorer.BITS_PER_FACE * YahtzeeScorer.N_FACES);
+
+	/* keep key -> keep index, -1 if not a keep */
+	private static final short[] KEEP_INDEX_OF_KEY = new short[KEY_SPACE];
+	private static final int[] KEEP_KEY = new int[N_KEEPS];
+
+	/* outcomes of keep k are OUT_ROLL/OUT_PROB[OUT_START[k] .. OUT_START[k+1]) */
+	private static final int[] OUT_START = new int[N_KEEPS + 1];
+	private static int[] OUT_ROLL;
+	private static double[] OUT_PROB;
+
+	/* distinct keeps of roll r are ROLL_KEEP[ROLL_KEEP_START[r] .. ROLL_KEEP_START[r+1]) */
+	private static final int[] ROLL_KEEP_START = new int[YahtzeeScorer.N_ROLLS + 1];
+	private static int[] ROLL_KEEP;
+
+/** Index of the empty keep, i.e. the very first roll of a turn */
+	public static final int EMPTY_KEEP;
+
+	static {
+		java.util.Arrays.fill(KEEP_INDEX_OF_KEY, (short) -1);
+		int[] next = { 0 };
+		fillKeeps(new int[YahtzeeScorer.N_FACES], 0, next);
+		EMPTY_KEEP = KEEP_INDEX_OF_KEY[0];
+		fillOutcomes();
+		fillRollKeeps();
+	}
+
+	private DiceTransitions() {
+	}
+
+	/*
+	 * Enumerates all multisets of up to N_DICE dice
+	 */
+	private static void fillKeeps(int[] counts, int face, int[] next) {
+		if (face == YahtzeeScorer.N_FACES) {
+			int total = 0;
+			int key = 0;
+			for (int f = 0; f < counts.length; f++) {
+				total += counts[f];
+				key |= counts[f] << (YahtzeeScorer.BITS_PER_FACE * f);
+			}
+			if (total <= N_DICE) {
+				KEEP_INDEX_OF_KEY[key] = (short) next[0];
+				KEEP_KEY[next[0]++] = key;
+			}
+			return;
+		}
+		for (int n = 0; n <= N_DICE; n++) {
+			counts[face] = n;
+			fillKeeps(counts, face + 1, next);
+		}
+		counts[face] = 0;
+	}
+
+	/*
+	 * For each keep, adds every multiset of the missing dice and
+	 * weights it by its multinomial probability
+	 */
+	private static void fillOutcomes() {
+		int total = 0;
+		for (int k = 0; k < N_KEEPS; k++) {
+			total += binomial(N_DICE - diceIn(KEEP_KEY[k]) + YahtzeeScorer.N_FACES - 1, YahtzeeScorer.N_FACES - 1);
+		}
+		OUT_ROLL = new int[total];
+		OUT_PROB = new double[total];
+		int pos = 0;
+		for (int k = 0; k < N_KEEPS; k++) {
+			OUT_START[k] = pos;
+			int keepKey = KEEP_KEY[k];
+			int free = N_DICE - diceIn(keepKey);
+			for (int add = 0; add < N_KEEPS; add++) {
+				int addKey = KEEP_KEY[add];
+				if (diceIn(addKey) != free) {
+					continue;
+				}
+				OUT_ROLL[pos] = YahtzeeScorer.indexOf(keepKey + addKey);
+				OUT_PROB[pos] = multinomial(addKey, free) / Math.pow(YahtzeeScorer.N_FACES, free);
+				pos++;
+			}
+		}
+		OUT_START[N_KEEPS] = pos;
+	}
+
+	private static void fillRollKeeps() {
+		int[] buffer = new int[YahtzeeScorer.N_ROLLS * (1 << N_DICE)];
+		int pos = 0;
+		int[] dice = new int[N_DICE];
+		for (int r = 0; r < YahtzeeScorer.N_ROLLS; r++) {
+			ROLL_KEEP_START[r] = pos;
+			diceOf(YahtzeeScorer.keyOf(r), dice);
+			for (int mask = 0; mask < 1 << N_DICE; mask++) {
+				int keep = keepOf(dice, mask);
+				boolean seen = false;
+				for (int i = ROLL_KEEP_START[r]; i < pos; i++) {
+					seen |= buffer[i] == keep;
+				}
+				if (!seen) {
+					buffer[pos++] = keep;
+				}
+			}
+		}
+		ROLL_KEEP_START[YahtzeeScorer.N_ROLLS] = pos;
+		ROLL_KEEP = java.util.Arrays.copyOf(buffer, pos);
+	}
+
+	private static int diceIn(int key) {
+		int n = 0;
+		for (int f = 1; f <= YahtzeeScorer.N_FACES; f++) {
+			n += YahtzeeScorer.count(key, f);
+		}
+		return n;
+	}
+
+	private static double multinomial(int key, int n) {
+		double result = factorial(n);
+		for (int f = 1; f <= YahtzeeScorer.N_FACES; f++) {
+			result /= factorial(YahtzeeScorer.count(key, f));
+		}
+		return result;
+	}
+
+	private static double factorial(int n) {
+		double result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+
+	private static int binomial(int n, int k) {
+		return (int) Math.round(factorial(n) / (factorial(k) * factorial(n - k)));
+	}
+
+	/**
+	 * Writes the dice of a roll key into dice in ascending order
+	 */
+	public static void diceOf(int key, int[] dice) {
+		int i = 0;
+		for (int f = 1; f <= YahtzeeScorer.N_FACES; f++) {
+			for (int n = YahtzeeScorer.count(key, f); n > 0; n--) {
+				dice[i++] = f;
+			}
+		}
+	}
+
+	/**
+	 * Keep index left after rerolling the dice whose bit is set in rerollMask
+	 * (bit n set means die n is rolled again, like YahtzeeDisplay.isDieSelected)
+	 */
+	public static int keepOf(int[] dice, int rerollMask) {
+		int key = 0;
+		for (int n = 0; n < dice.length; n++) {
+			if ((rerollMask & (1 << n)) == 0) {
+				key += 1 << (YahtzeeScorer.BITS_PER_FACE * (dice[n] - 1));
+			}
+		}
+		return KEEP_INDEX_OF_KEY[key];
+	}
+
+	/**
+	 * Inverse of keepOf: reroll mask over dice that leaves exactly keep
+	 * held. The first matching dice are held, the rest are rerolled.
+	 */
+	public static int rerollMaskFor(int[] dice, int keep) {
+		int key = KEEP_KEY[keep];
+		int mask = 0;
+		for (int n = 0; n < dice.length; n++) {
+			int shift = YahtzeeScorer.BITS_PER_FACE * (dice[n] - 1);
+			if (((key >>> shift) & 7) > 0) {
+				key -= 1 << shift;
+			} else {
+				mask |= 1 << n;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Keep index of a packed keep key, -1 if key holds more than N_DICE dice
+	 */
+	public static int keepIndexOf(int keepKey) {
+		return KEEP_INDEX_OF_KEY[keepKey];
+	}
+
+	public static int keepKey(int keep) {
+		return KEEP_KEY[keep];
+	}
+
+	public static int outcomeStart(int keep) {
+		return OUT_START[keep];
+	}
+
+	public static int outcomeEnd(int keep) {
+		return OUT_START[keep + 1];
+	}
+
+	/** Roll index of outcome i */
+	public static int outcomeRoll(int i) {
+		return OUT_ROLL[i];
+	}
+
+	/** Probability of outcome i */
+	public static double outcomeProbability(int i) {
+		return OUT_PROB[i];
+	}
+
+	public static int rollKeepStart(int roll) {
+		return ROLL_KEEP_START[roll];
+	}
+
+	public static int rollKeepEnd(int roll) {
+		return ROLL_KEEP_START[roll + 1];
+	}
+
+	/** Keep index stored at position i of a roll's keep list */
+	public static int rollKeep(int i) {
+		return ROLL_KEEP[i];
+	}
+
+	/**
+	 * Expected value of rolling again from keep, given the value of every
+	 * resulting roll
+	 */
+	public static double expected(int keep, double[] rollValues) {
+		double sum = 0;
+		for (int i = OUT_START[keep], end = OUT_START[keep + 1]; i < end; i++) {
+			sum += OUT_PROB[i] * rollValues[OUT_ROLL[i]];
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+ * File: GameClient.java
+ * ---------------------
+ * Synthetic load for GameServer: opens many connections from one
+ * selector thread, plays two-player games on each with GreedyPolicy
+ * bots and measures every action's round trip, from sending the answer
+ * to the server's next message. BONUS is pipelined with its CATEGORY in
+ * one write.
+ *
+ *   java GameClient [connections] [games each] [host:port]
+ *
+ * Without host:port it starts a GameServer on a free local port first,
+ * so the whole test runs over localhost in one process.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import acm.util.ErrorException;
+
+public class GameClient implements GameProtocol, YahtzeeConstants2 {
+
+	private static final int PLAYERS = 2;
+	private static final String[] ACTIONS = { "", "new game", "roll", "reroll", "catch", "", "category", "ball" };
+
+	private final long[][] latencies = new long[ACTIONS.length][];
+	private final int[] counts = new int[ACTIONS.length];
+	private int gamesLeft;
+	private long totalPoints = 0;
+	private long gamesPlayed = 0;
+
+	public static void main(String[] args) throws IOException {
+		int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		GameServer local = null;
+		InetSocketAddress address;
+		if (args.length > 2) {
+			String[] hostPort = args[2].split(":");
+			address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+		} else {
+			local = new GameServer(0, Math.min(4, Runtime.getRuntime().availableProcessors()));
+			local.start();
+			address = new InetSocketAddress("localhost", local.getPort());
+		}
+		GameClient client = new GameClient();
+		long start = System.nanoTime();
+		client.run(address, connections, games);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d connections, %d games in %.2f s, mean total %.1f%n", connections, client.gamesPlayed,
+				seconds, client.totalPoints / (double) (client.gamesPlayed * PLAYERS));
+		System.out.print(client.report());
+		if (local != null) {
+			local.close();
+		}
+	}
+
+	private GameClient() {
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = new long[1024];
+		}
+	}
+
+	/*
+	 * Connects everything, then answers prompts until every connection
+	 * has played its games
+	 */
+	private void run(InetSocketAddress address, int connections, int games) throws IOException {
+		gamesLeft = connections * games;
+		try (Selector selector = Selector.open()) {
+			for (int i = 0; i < connections; i++) {
+				SocketChannel channel = SocketChannel.open(address);
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				Table table = new Table(channel, games, i);
+				channel.register(selector, SelectionKey.OP_READ, table);
+				table.newGame();
+			}
+			while (gamesLeft > 0) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					((Table) key.attachment()).read();
+				}
+			}
+			for (SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+		}
+	}
+
+	private void record(int action, long nanos) {
+		if (counts[action] == latencies[action].length) {
+			latencies[action] = Arrays.copyOf(latencies[action], counts[action] * 2);
+		}
+		latencies[action][counts[action]++] = nanos;
+	}
+
+	/**
+	 * Round-trip percentiles per action in microseconds
+	 */
+	private String report() {
+		StringBuilder out = new StringBuilder(String.format("%-10s %8s %8s %8s %8s %8s%n", "action", "count",
+				"p50", "p90", "p99", "p99.9"));
+		for (int action = 0; action < ACTIONS.length; action++) {
+			if (counts[action] == 0) {
+				continue;
+			}
+			long[] sorted = Arrays.copyOf(latencies[action], counts[action]);
+			Arrays.sort(sorted);
+			out.append(String.format("%-10s %8d %8.1f %8.1f %8.1f %8.1f%n", ACTIONS[action], sorted.length,
+					percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+					percentile(sorted, 0.999)));
+		}
+		return out.toString();
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e3;
+	}
+
+	/*
+	 * One connection: a bot for both seats
+	 */
+	private class Table {
+		final SocketChannel channel;
+		final ByteBuffer in = ByteBuffer.allocate(8 * MAX_FRAME_BYTES);
+		final ByteBuffer out = ByteBuffer.allocate(4 * MAX_FRAME_BYTES);
+		final GreedyPolicy policy = new GreedyPolicy();
+		final int[] dice = new int[N_DICE];
+		Scorecard card = new Scorecard(PLAYERS);
+		int games;
+		long seed;
+		int round = 0;
+		int pending = 0; // action waiting for its answer, 0 for none
+		long sentAt;
+
+		Table(SocketChannel channel, int games, long seed) {
+			this.channel = channel;
+			this.games = games;
+			this.seed = seed;
+		}
+
+		void newGame() throws IOException {
+			card = new Scorecard(PLAYERS);
+			round = 0;
+			out.putShort((short) 10).put(NEW_GAME).put((byte) PLAYERS).putLong(seed++);
+			send(NEW_GAME);
+		}
+
+		void read() throws IOException {
+			if (channel.read(in) < 0) {
+				throw new ErrorException("server closed the connection");
+			}
+			in.flip();
+			while (in.remaining() >= 2 && in.remaining() >= 2 + (in.getShort(in.position()) & 0xffff)) {
+				if (pending != 0) {
+					record(pending, System.nanoTime() - sentAt);
+					pending = 0;
+				}
+				int length = in.getShort() & 0xffff;
+				int next = in.position() + length;
+				answer(in.get(), length - 1);
+				in.position(next);
+			}
+			in.compact();
+		}
+
+		/*
+		 * Answers one server message, like a player at the table would
+		 */
+		private void answer(byte type, int payload) throws IOException {
+			switch (type) {
+			case TURN:
+				in.get();
+				frame(ROLL);
+				send(ROLL);
+				break;
+			case DICE: {
+				in.get();
+				int rerollsLeft = in.get();
+				readDice();
+				frame(REROLL).put((byte) policy.chooseReroll(dice, rerollsLeft, 0, 0));
+				send(REROLL);
+				break;
+			}
+			case SURPRISE:
+				in.get();
+				frame(CATCH).put((byte) 1);
+				send(CATCH);
+				break;
+			case PICK: {
+				int player = in.get();
+				readDice();
+				int category = policy.chooseCategory(dice, card.usedMask(player), card.upper(player));
+				if (!card.isBonusUsed(player) && policy.useBonus(category, YahtzeeScorer.score(dice, category), round)) {
+					frame(BONUS); // pipelined with the category
+				}
+				frame(CATEGORY).put((byte) category);
+				send(CATEGORY);
+				break;
+			}
+			case REJECTED:
+				throw new ErrorException("server rejected category " + in.get(in.position() + 1));
+			case SANTA:
+				in.get();
+				in.get();
+				frame(BALL).put((byte) 1);
+				send(BALL);
+				break;
+			case SANTA_RESULT:
+				in.position(in.position() + 3);
+				break;
+			case SCORED:
+				in.position(in.position() + 4);
+				card = Scorecard.readFrom(in, in.get());
+				round = Integer.bitCount(card.usedMask(PLAYERS - 1));
+				break;
+			case GAME_OVER:
+				int players = in.get();
+				for (int p = 0; p < players; p++) {
+					totalPoints += in.getShort();
+				}
+				gamesPlayed++;
+				gamesLeft--;
+				if (--games > 0) {
+					newGame();
+				}
+				break;
+			case ERROR:
+				byte[] text = new byte[payload];
+				in.get(text);
+				throw new ErrorException("server error: " + new String(text, StandardCharsets.UTF_8));
+			default:
+				throw new ErrorException("unknown message " + type);
+			}
+		}
+
+		private void readDice() {
+			for (int n = 0; n < N_DICE; n++) {
+				dice[n] = in.get();
+			}
+		}
+
+		/* starts a frame whose payload is at most one byte */
+		private ByteBuffer frame(byte type) {
+			return out.putShort((short) (type == ROLL || type == BONUS ? 1 : 2)).put(type);
+		}
+
+		private void send(int action) throws IOException {
+			out.flip();
+			sentAt = System.nanoTime();
+			pending = action;
+			while (out.hasRemaining()) { // a few bytes always fit in the socket buffer
+				channel.write(out);
+			}
+			out.clear();
+		}
+	}
+
+}
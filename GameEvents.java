@@ -0,0 +1,88 @@
+/*
+ * File: GameEvents.java
+ * ---------------------
+ * Java Flight Recorder events for the game's key points. They cost
+ * next to nothing unless a recording is running, e.g.
+ *
+ *   java -XX:StartFlightRecording=filename=game.jfr YahtzeeExtension
+ *
+ * and then show up under the "Yahtzee" category in JDK Mission Control.
+ * Fields that need a string are only built when the event will be
+ * committed (see shouldCommit).
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+public final class GameEvents {
+
+	private GameEvents() {
+	}
+
+	@Name("yahtzee.Turn")
+	@Label("Turn")
+	@Category("Yahtzee")
+	@Description("From the Roll Dice click to the scorecard update")
+	public static class Turn extends Event {
+		@Label("Player")
+		public String player;
+		@Label("Round")
+		public int round;
+		@Label("Category")
+		public int category;
+		@Label("Score")
+		public int score;
+	}
+
+	@Name("yahtzee.DiceRoll")
+	@Label("Dice Roll")
+	@Category("Yahtzee")
+	@Description("A turn's first roll, or one reroll, from the moment the dice to roll are known to their display")
+	public static class DiceRoll extends Event {
+		@Label("Kind")
+		public String kind;
+		@Label("Dice")
+		public String dice;
+		@Label("Reroll Mask")
+		@Description("Bit n set means die n was rolled again")
+		public int rerollMask;
+	}
+
+	@Name("yahtzee.CategoryScore")
+	@Label("Category Score")
+	@Category("Yahtzee")
+	@Description("Scoring a category, from the pick to the scorecard update")
+	public static class CategoryScore extends Event {
+		@Label("Category")
+		public int category;
+		@Label("Score")
+		public int score;
+	}
+
+	@Name("yahtzee.AssetLoad")
+	@Label("Asset Load")
+	@Category("Yahtzee")
+	@Description("Reading and decoding one image or sound")
+	public static class AssetLoad extends Event {
+		@Label("Name")
+		public String name;
+		@Label("Kind")
+		public String kind;
+	}
+
+	@Name("yahtzee.AnimationStart")
+	@Label("Animation Start")
+	@Category("Yahtzee")
+	@Description("An animation registered with the clock (snow, surprise, label)")
+	public static class AnimationStart extends Event {
+		@Label("Animation")
+		public String animation;
+		@Label("Woke Clock")
+		@Description("True if the clock was idle and had to be scheduled again")
+		public boolean wokeClock;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * File: GameIO.java
+ * -----------------
+ * Everything YahtzeeGame needs from the outside world: the moves of the
+ * players at one table and somewhere to report what happened. In the
+ * window these are YahtzeeDisplay clicks and IODialog questions; a
+ * hosted table can get them from the network or a bot. Calls that wait
+ * for a player may block as long as they like. Players are numbered
+ * from 0.
+ */
+
+public interface GameIO {
+
+	/**
+	 * Blocks until player starts the turn, like clicking "Roll Dice"
+	 */
+	void awaitRoll(int player);
+
+	/**
+	 * Returns which dice to roll again (bit n set means die n). Returning
+	 * 0 keeps every die and ends rolling for this turn.
+	 */
+	int chooseReroll(int player, int[] dice, int rerollsLeft);
+
+	/**
+	 * Returns a category (ONES..CHANCE) for the final dice. A used or
+	 * non-scoring category is rejected and asked for again. surprise is
+	 * true when a surprise falls while player picks.
+	 */
+	int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise);
+
+	/**
+	 * Returns true if player pressed BONUS for this pick. Only asked
+	 * while the player still has the bonus.
+	 */
+	boolean useBonus(int player, int category, int[] dice);
+
+	/**
+	 * A surprise fell during the pick just made; returns true if player
+	 * caught it before picking
+	 */
+	boolean catchSurprise(int player);
+
+	/**
+	 * SANTA offers reward points: returns 0 to refuse, otherwise the
+	 * ball (1 or 2) player picks
+	 */
+	int santaChoice(int player, int reward);
+
+	/**
+	 * SANTA is over for player, who won points (negative if lost, 0 if
+	 * refused); players after them choose knowing it
+	 */
+	void santaResult(int player, int points);
+
+	/**
+	 * A category was scored; card already includes it
+	 */
+	void scored(int player, int category, int score, Scorecard card);
+
+	/**
+	 * The game is over; totals include the upper bonus and SANTA
+	 */
+	void gameOver(Scorecard card, int[] totals);
+
+}
@@ -0,0 +1,348 @@
+/*
+ * File: GameJournal.java
+ * ----------------------
+ * Append-only binary log of everything that happens in a game: player
+ * setup, every roll and reroll mask, category picks, BONUS presses,
+ * surprise catches and SANTA choices. Records go straight into a
+ * memory-mapped file, so logging a turn is a few stores into memory.
+ * Unused space at the end of the file is zero, which is where reading
+ * stops, so a log cut short by a crash still replays up to its last
+ * record.
+ *
+ * Every record is 8 bytes: type, player, arg, flags and a 32-bit value.
+ * GAME_START is followed by the players' names.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import acm.util.ErrorException;
+
+public class GameJournal implements AutoCloseable {
+
+	/* record types; 0 marks the end of the data */
+	static final byte END = 0;
+	static final byte GAME_START = 1;
+	static final byte ROLL = 2;
+	static final byte CATEGORY = 3;
+	static final byte BONUS_PRESS = 4;
+	static final byte SURPRISE = 5;
+	static final byte SANTA = 6;
+	static final byte GAME_END = 7;
+
+/** CATEGORY flag: the free BONUS doubled this score */
+	public static final int FLAG_BONUS = 1;
+
+/** CATEGORY flag: a caught surprise added to this score */
+	public static final int FLAG_SURPRISE = 2;
+
+/** Journal the game appends to, next to the program */
+	public static final String DEFAULT_FILE = "yahtzee-journal.bin";
+
+	private static final int MAGIC = 0x594A524E; // "YJRN"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 8;
+	private static final int RECORD_BYTES = 8;
+	private static final int CHUNK_BYTES = 1 << 20;
+
+	private final FileChannel channel;
+	private MappedByteBuffer mapped;
+
+	private GameJournal(FileChannel channel, MappedByteBuffer mapped) {
+		this.channel = channel;
+		this.mapped = mapped;
+	}
+
+	/**
+	 * Opens the journal for appending, creating it if needed. New records
+	 * go after the last complete record already in the file.
+	 */
+	public static GameJournal open(File file) {
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			boolean fresh;
+			try {
+				fresh = isFresh(channel, file);
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			long size = Math.max(channel.size(), HEADER_BYTES + CHUNK_BYTES);
+			MappedByteBuffer mapped = map(channel, size);
+			if (fresh) {
+				mapped.putInt(0, MAGIC).putInt(4, VERSION);
+			}
+			mapped.position(endOfData(mapped));
+			return new GameJournal(channel, mapped);
+		} catch (IOException e) {
+			throw new ErrorException("Cannot open journal " + file + ": " + e.getMessage());
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+		MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+		return mapped;
+	}
+
+	/*
+	 * Reads the header through the channel, before anything is mapped, so
+	 * a file that is not a journal is left as it was. True for an empty
+	 * file, or one whose header was never written.
+	 */
+	private static boolean isFresh(FileChannel channel, File file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+			// a read may stop short of the whole header
+		}
+		if (header.getInt(0) == 0) {
+			return true;
+		}
+		if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("not a game journal: " + file);
+		}
+		return false;
+	}
+
+	private static void checkHeader(MappedByteBuffer mapped, File file) throws IOException {
+		if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+			throw new IOException("not a game journal: " + file);
+		}
+	}
+
+	/*
+	 * Walks the records to find where the data ends
+	 */
+	private static int endOfData(MappedByteBuffer buffer) {
+		int position = HEADER_BYTES;
+		while (position + RECORD_BYTES <= buffer.limit() && buffer.get(position) != END) {
+			position = next(buffer, position);
+		}
+		return position;
+	}
+
+	/*
+	 * Position of the record after the one at position
+	 */
+	private static int next(MappedByteBuffer buffer, int position) {
+		int after = position + RECORD_BYTES;
+		if (buffer.get(position) == GAME_START) {
+			for (int i = 0; i < buffer.get(position + 2); i++) {
+				after += 2 + (buffer.getShort(after) & 0xffff);
+			}
+		}
+		return after;
+	}
+
+	/**
+	 * Records the players of a new game, as entered in run()
+	 */
+	public synchronized void gameStarted(String[] playerNames) {
+		byte[][] names = new byte[playerNames.length][];
+		int bytes = RECORD_BYTES;
+		for (int i = 0; i < names.length; i++) {
+			names[i] = playerNames[i].getBytes(StandardCharsets.UTF_8);
+			bytes += 2 + names[i].length;
+		}
+		ensureRoom(bytes);
+		int position = mapped.position();
+		mapped.position(position + 1); // type goes in last, see put()
+		mapped.put((byte) 0).put((byte) names.length).put((byte) 0).putInt((int) (System.currentTimeMillis() / 1000));
+		for (byte[] name : names) {
+			mapped.putShort((short) name.length).put(name);
+		}
+		mapped.put(position, GAME_START);
+	}
+
+	/**
+	 * Records dice after a roll. rerollMask is 0 for the first roll of a
+	 * turn, otherwise the dice that were rolled again.
+	 */
+	public synchronized void rolled(int player, int[] dice, int rerollMask, boolean firstRoll) {
+		put(ROLL, player, firstRoll ? 1 : 0, rerollMask, packDice(dice));
+	}
+
+	/**
+	 * Records a category pick and the score that went into totalScores
+	 */
+	public synchronized void categoryScored(int player, int category, int score, int flags) {
+		put(CATEGORY, player, category, flags, score);
+	}
+
+	/**
+	 * Records a BONUS press; accepted is false if the bonus was used up
+	 */
+	public synchronized void bonusPressed(int player, boolean accepted) {
+		put(BONUS_PRESS, player, 0, accepted ? 1 : 0, 0);
+	}
+
+	/**
+	 * Records a surprise that was caught by a click
+	 */
+	public synchronized void surpriseCaught(int player) {
+		put(SURPRISE, player, 0, 1, 0);
+	}
+
+	/**
+	 * Records a SANTA answer: choice 1 (yes) or 2 (no) and points won or lost
+	 */
+	public synchronized void santa(int player, int choice, int points) {
+		put(SANTA, player, choice, 0, points);
+	}
+
+	public synchronized void gameEnded() {
+		put(GAME_END, 0, 0, 0, 0);
+	}
+
+	/*
+	 * The type byte is written last, so a record is either complete or,
+	 * still being 0, marks the end of the data
+	 */
+	private void put(byte type, int player, int arg, int flags, int value) {
+		ensureRoom(RECORD_BYTES);
+		int position = mapped.position();
+		mapped.put(position + 1, (byte) player).put(position + 2, (byte) arg).put(position + 3, (byte) flags)
+				.putInt(position + 4, value);
+		mapped.put(position, type);
+		mapped.position(position + RECORD_BYTES);
+	}
+
+	/*
+	 * Grows the file by another chunk when the mapping is nearly full
+	 */
+	private void ensureRoom(int bytes) {
+		if (mapped.remaining() >= bytes + RECORD_BYTES) {
+			return;
+		}
+		try {
+			int position = mapped.position();
+			mapped = map(channel, mapped.capacity() + Math.max(CHUNK_BYTES, bytes + RECORD_BYTES));
+			mapped.position(position);
+		} catch (IOException e) {
+			throw new ErrorException("Cannot grow journal: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Flushes written records to disk and closes the file
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			mapped.force();
+			channel.close();
+		} catch (IOException e) {
+			throw new ErrorException("Cannot close journal: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Dice as 3 bits each, die 0 lowest
+	 */
+	static int packDice(int[] dice) {
+		int packed = 0;
+		for (int i = 0; i < dice.length; i++) {
+			packed |= dice[i] << (3 * i);
+		}
+		return packed;
+	}
+
+	static void unpackDice(int packed, int[] dice) {
+		for (int i = 0; i < dice.length; i++) {
+			dice[i] = (packed >>> (3 * i)) & 7;
+		}
+	}
+
+	/**
+	 * Receives the records of a journal in order, see replay
+	 */
+	public interface Listener {
+		void gameStarted(String[] playerNames, long startSeconds);
+
+		void rolled(int player, int[] dice, int rerollMask, boolean firstRoll);
+
+		void categoryScored(int player, int category, int score, int flags);
+
+		void bonusPressed(int player, boolean accepted);
+
+		void surpriseCaught(int player);
+
+		void santa(int player, int choice, int points);
+
+		void gameEnded();
+	}
+
+	/**
+	 * Reads every record of file into listener and returns how many there were.
+	 * The dice array passed to rolled is reused between calls.
+	 */
+	public static long replay(File file, Listener listener) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			checkHeader(buffer, file);
+			int[] dice = new int[YahtzeeConstants2.N_DICE];
+			long records = 0;
+			int position = HEADER_BYTES;
+			while (position + RECORD_BYTES <= buffer.limit() && buffer.get(position) != END) {
+				dispatch(buffer, position, dice, listener);
+				position = next(buffer, position);
+				records++;
+			}
+			return records;
+		} catch (IOException e) {
+			throw new ErrorException("Cannot replay journal " + file + ": " + e.getMessage());
+		}
+	}
+
+	private static void dispatch(MappedByteBuffer buffer, int position, int[] dice, Listener listener) {
+		int player = buffer.get(position + 1);
+		int arg = buffer.get(position + 2);
+		int flags = buffer.get(position + 3);
+		int value = buffer.getInt(position + 4);
+		switch (buffer.get(position)) {
+		case GAME_START:
+			String[] names = new String[arg];
+			int at = position + RECORD_BYTES;
+			for (int i = 0; i < arg; i++) {
+				byte[] name = new byte[buffer.getShort(at) & 0xffff];
+				for (int b = 0; b < name.length; b++) {
+					name[b] = buffer.get(at + 2 + b);
+				}
+				names[i] = new String(name, StandardCharsets.UTF_8);
+				at += 2 + name.length;
+			}
+			listener.gameStarted(names, value & 0xffffffffL);
+			break;
+		case ROLL:
+			unpackDice(value, dice);
+			listener.rolled(player, dice, flags, arg == 1);
+			break;
+		case CATEGORY:
+			listener.categoryScored(player, arg, value, flags);
+			break;
+		case BONUS_PRESS:
+			listener.bonusPressed(player, flags == 1);
+			break;
+		case SURPRISE:
+			listener.surpriseCaught(player);
+			break;
+		case SANTA:
+			listener.santa(player, arg, value);
+			break;
+		case GAME_END:
+			listener.gameEnded();
+			break;
+		default:
+			throw new ErrorException("Corrupt journal record at byte " + position);
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * File: GamePolicy.java
+ * ---------------------
+ * The decisions a player makes during a game, so the rules can be
+ * played without YahtzeeDisplay and IODialog. usedMask has bit
+ * YahtzeeScorer.slotOf(category) set for every used category and
+ * upper is the points scored so far in ONES..SIXES.
+ */
+
+public interface GamePolicy {
+
+/** Scores at least this high are worth doubling with BONUS by default */
+	public static final int BONUS_WORTHY_SCORE = 30;
+
+	/**
+	 * Returns which dice to roll again (bit n set means die n, like
+	 * YahtzeeDisplay.isDieSelected). Returning 0 ends rolling for this turn.
+	 */
+	int chooseReroll(int[] dice, int rerollsLeft, int usedMask, int upper);
+
+	/**
+	 * Returns an unused category (ONES..CHANCE) for the final dice
+	 */
+	int chooseCategory(int[] dice, int usedMask, int upper);
+
+	/**
+	 * Returns true to press BONUS and double score in category. Only
+	 * asked while the player still has the bonus. By default a score of
+	 * BONUS_WORTHY_SCORE or more is doubled, and so is the last round's.
+	 */
+	default boolean useBonus(int category, int score, int round) {
+		return score >= BONUS_WORTHY_SCORE || round == YahtzeeConstants2.TOTAL_ROUNDS - 1;
+	}
+
+	/**
+	 * Returns true to accept SANTA's gift at the end of the game. By
+	 * default always: it is a fair coin, so it costs nothing on average.
+	 */
+	default boolean acceptSanta(int total) {
+		return true;
+	}
+
+}
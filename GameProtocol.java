@@ -0,0 +1,57 @@
+/*
+ * File: GameProtocol.java
+ * -----------------------
+ * Message types of the binary protocol GameServer and GameClient speak.
+ * Every message is a frame: a 2-byte length (of what follows), a 1-byte
+ * type and a small payload, all big-endian. A client can send several
+ * frames without waiting; they are handled in order.
+ *
+ * After NEW_GAME the server drives the game with prompts, and each
+ * prompt is answered by exactly one client frame:
+ *
+ *   TURN       player                      -> ROLL
+ *   DICE       player, rerolls left, dice  -> REROLL mask (0 stops)
+ *   SURPRISE   player                      -> CATCH 0/1
+ *   PICK       player, dice                -> [BONUS] CATEGORY
+ *   REJECTED   player, category            -> CATEGORY
+ *   SANTA      player, reward              -> BALL 0 (no gift), 1 or 2
+ *
+ * SCORED (player, category, score, then the Scorecard's packed words)
+ * follows every pick, SANTA_RESULT (player, points won or lost) every
+ * SANTA answer, and GAME_OVER (a total per player) ends the game.
+ * Dice travel as five bytes.
+ */
+
+public interface GameProtocol {
+
+/** Port the server listens on unless told otherwise */
+	public static final int DEFAULT_PORT = 4477;
+
+/** Bytes before a frame's payload: length and type */
+	public static final int HEADER_BYTES = 3;
+
+/** Largest frame either side sends, header included */
+	public static final int MAX_FRAME_BYTES = 256;
+
+	/* client to server */
+	public static final byte NEW_GAME = 1; // players u8, seed i64
+	public static final byte ROLL = 2;
+	public static final byte REROLL = 3; // mask u8
+	public static final byte CATCH = 4; // caught u8
+	public static final byte BONUS = 5;
+	public static final byte CATEGORY = 6; // category u8
+	public static final byte BALL = 7; // ball u8
+
+	/* server to client */
+	public static final byte TURN = 20; // player u8
+	public static final byte DICE = 21; // player u8, rerolls left u8, dice
+	public static final byte SURPRISE = 22; // player u8
+	public static final byte PICK = 23; // player u8, dice
+	public static final byte REJECTED = 24; // player u8, category u8
+	public static final byte SANTA = 25; // player u8, reward u8
+	public static final byte SCORED = 26; // player u8, category u8, score i16, players u8, words i64...
+	public static final byte GAME_OVER = 27; // players u8, totals i16...
+	public static final byte ERROR = 28; // reason as UTF-8
+	public static final byte SANTA_RESULT = 29; // player u8, points i16
+
+}
@@ -0,0 +1,427 @@
+/*
+ * File: GameServer.java
+ * ---------------------
+ * Hosts games for remote clients over TCP, speaking GameProtocol. A few
+ * selector threads do all the work: each connection is one table whose
+ * YahtzeeGame is answered right in the frame handler, one prompt per
+ * frame, so a table waiting for its client is a YahtzeeGame and two
+ * buffers and holds no thread on any Java version. Prompts are written
+ * into the connection's direct output buffer, including the Scorecard's
+ * packed words, so nothing is copied on the way to the socket.
+ *
+ *   java GameServer [port] [selector threads]
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameServer implements GameProtocol, YahtzeeConstants2, AutoCloseable {
+
+	private static final int INPUT_BYTES = 1024;
+	private static final int OUTPUT_BYTES = 4096;
+
+	private final ServerSocketChannel server;
+	private final Worker[] workers;
+	private final AtomicInteger connections = new AtomicInteger();
+	private int nextWorker = 0;
+
+	/**
+	 * Binds to port on all interfaces (0 picks a free port) with the
+	 * given number of selector threads
+	 */
+	public GameServer(int port, int threads) throws IOException {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), 1024);
+		server.configureBlocking(false);
+		workers = new Worker[Math.max(1, threads)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i);
+		}
+		server.register(workers[0].selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int threads = args.length > 1 ? Integer.parseInt(args[1])
+				: Math.min(4, Runtime.getRuntime().availableProcessors());
+		GameServer server = new GameServer(port, threads);
+		server.start();
+		System.out.println("Listening on port " + server.getPort() + " with " + threads + " selector threads");
+	}
+
+	/**
+	 * Starts the selector threads
+	 */
+	public void start() {
+		for (Worker worker : workers) {
+			Thread thread = new Thread(worker, "GameServer-" + worker.id);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/** Connections currently open */
+	public int getConnections() {
+		return connections.get();
+	}
+
+	/**
+	 * Closes every connection, which ends their games, and stops the threads
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+		for (Worker worker : workers) {
+			worker.selector.close();
+		}
+	}
+
+	/*
+	 * One selector thread. Worker 0 also accepts and hands new
+	 * connections out round robin.
+	 */
+	private class Worker implements Runnable {
+		final int id;
+		final Selector selector;
+		final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+		Worker(int id) throws IOException {
+			this.id = id;
+			this.selector = Selector.open();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (selector.isOpen()) {
+					selector.select();
+					registerAccepted();
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						handle(key);
+					}
+				}
+			} catch (IOException | ClosedSelectorException e) {
+				// server closed
+			}
+		}
+
+		private void handle(SelectionKey key) {
+			if (!key.isValid()) {
+				return;
+			}
+			if (key.isAcceptable()) {
+				accept();
+				return;
+			}
+			Connection connection = (Connection) key.attachment();
+			if (key.isReadable()) {
+				connection.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				connection.flush();
+			}
+		}
+
+		private void accept() {
+			try {
+				SocketChannel channel;
+				while ((channel = server.accept()) != null) {
+					channel.configureBlocking(false);
+					channel.socket().setTcpNoDelay(true);
+					Worker worker = workers[nextWorker++ % workers.length];
+					worker.accepted.add(channel);
+					worker.selector.wakeup();
+				}
+			} catch (IOException e) {
+				// a failed accept only loses that connection
+			}
+		}
+
+		private void registerAccepted() throws IOException {
+			SocketChannel channel;
+			while ((channel = accepted.poll()) != null) {
+				Connection connection = new Connection(channel);
+				connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+				connections.incrementAndGet();
+			}
+		}
+	}
+
+	/*
+	 * One client and its table, used only by its selector thread. Every
+	 * frame answers the prompt the table is waiting on, and the game
+	 * then runs on until it needs the client again.
+	 */
+	private class Connection {
+		final SocketChannel channel;
+		SelectionKey key;
+		final ByteBuffer in = ByteBuffer.allocate(INPUT_BYTES);
+		final ByteBuffer out = ByteBuffer.allocateDirect(OUTPUT_BYTES);
+		YahtzeeGame game; // null between games
+		byte expected; // message that answers the last prompt sent
+		boolean surpriseAsked = false;
+		boolean caught = false;
+		boolean bonusPressed = false;
+		boolean picking = false;
+		int lastCategory = 0;
+		boolean closed = false;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		/*
+		 * Reads what arrived and handles every complete frame, so
+		 * pipelined frames are all answered in one go and their prompts
+		 * leave in one write
+		 */
+		void read() {
+			try {
+				if (channel.read(in) < 0) {
+					close();
+					return;
+				}
+			} catch (IOException e) {
+				close();
+				return;
+			}
+			in.flip();
+			try {
+				while (!closed && in.remaining() >= 2) {
+					int length = in.getShort(in.position()) & 0xffff;
+					if (length < 1 || length + 2 > MAX_FRAME_BYTES) {
+						fail("bad frame length " + length);
+						return;
+					}
+					if (in.remaining() < length + 2) {
+						break;
+					}
+					int next = in.position() + length + 2;
+					in.getShort();
+					byte type = in.get();
+					if (length != (type == NEW_GAME ? 10 : type == ROLL || type == BONUS ? 1 : 2)) {
+						fail("bad length " + length + " for message " + type);
+						return;
+					}
+					if (type == NEW_GAME) {
+						startGame(in.get(), in.getLong());
+					} else {
+						handle(type, length > 1 ? in.get() & 0xff : 0);
+					}
+					in.position(next);
+				}
+			} catch (OutputFullException e) {
+				return; // closed already
+			}
+			in.compact();
+			flush();
+		}
+
+		private void startGame(int players, long seed) {
+			if (game != null) {
+				fail("game already running");
+				return;
+			}
+			if (players < MIN_PLAYERS || players > MAX_PLAYERS) {
+				fail("players must be " + MIN_PLAYERS + ".." + MAX_PLAYERS);
+				return;
+			}
+			game = new YahtzeeGame(players, seed);
+			advance();
+		}
+
+		/*
+		 * A frame from the client, which must answer the last prompt
+		 */
+		private void handle(byte type, int value) {
+			if (game == null) {
+				fail("no game running, got message " + type);
+				return;
+			}
+			if (type == BONUS && expected == CATEGORY) {
+				bonusPressed = true;
+				return;
+			}
+			if (type != expected) {
+				fail("expected message " + expected + ", got " + type);
+				return;
+			}
+			if (type == BALL && value > 2) {
+				fail("bad ball " + value); // 0 declines, 1 and 2 are the balls
+				return;
+			}
+			if (type == CATCH) {
+				caught = value != 0; // the game asks after the pick
+			} else {
+				if (type == CATEGORY) {
+					lastCategory = value;
+				}
+				game.answer(value);
+			}
+			advance();
+		}
+
+		/*
+		 * Answers what the server already knows (the catch, BONUS) and
+		 * writes every frame the game produces, until a prompt needs the
+		 * client or the game is over. The client is asked about the
+		 * surprise before the pick, as the protocol has always done.
+		 */
+		private void advance() {
+			while (true) {
+				int player = game.getPlayer();
+				switch (game.getPrompt()) {
+				case YahtzeeGame.AWAIT_ROLL:
+					header(2, TURN).put((byte) player);
+					expected = ROLL;
+					return;
+				case YahtzeeGame.CHOOSE_REROLL:
+					putDice(header(3 + N_DICE, DICE).put((byte) player).put((byte) game.getRerollsLeft()));
+					expected = REROLL;
+					return;
+				case YahtzeeGame.CHOOSE_CATEGORY:
+					if (picking) { // asked again: the last one was no good
+						header(3, REJECTED).put((byte) player).put((byte) lastCategory);
+					} else if (game.isSurprise() && !surpriseAsked) {
+						surpriseAsked = true;
+						header(2, SURPRISE).put((byte) player);
+						expected = CATCH;
+						return;
+					} else {
+						putDice(header(2 + N_DICE, PICK).put((byte) player));
+						picking = true;
+					}
+					expected = CATEGORY;
+					return;
+				case YahtzeeGame.CATCH_SURPRISE:
+					game.answer(caught ? 1 : 0);
+					break;
+				case YahtzeeGame.USE_BONUS:
+					game.answer(bonusPressed ? 1 : 0);
+					break;
+				case YahtzeeGame.SCORED:
+					Scorecard card = game.getScorecard();
+					card.writeTo(header(6 + 24 * card.getPlayers(), SCORED).put((byte) player)
+							.put((byte) game.getCategory()).putShort((short) game.getScore())
+							.put((byte) card.getPlayers()));
+					surpriseAsked = false;
+					caught = false;
+					bonusPressed = false;
+					picking = false;
+					game.answer(0);
+					break;
+				case YahtzeeGame.SANTA_CHOICE:
+					header(3, SANTA).put((byte) player).put((byte) game.getReward());
+					expected = BALL;
+					return;
+				case YahtzeeGame.SANTA_RESULT:
+					header(4, SANTA_RESULT).put((byte) player).putShort((short) game.getSantaPoints(player));
+					game.answer(0);
+					break;
+				default: // GAME_OVER; the client may start the next game right away
+					int[] totals = game.getTotals();
+					ByteBuffer frame = header(2 + 2 * totals.length, GAME_OVER).put((byte) totals.length);
+					for (int total : totals) {
+						frame.putShort((short) total);
+					}
+					game = null;
+					return;
+				}
+			}
+		}
+
+		/*
+		 * Starts a frame of length bytes (type and payload, as in the
+		 * length field). A client that stops reading is dropped.
+		 */
+		private ByteBuffer header(int length, byte type) {
+			if (out.remaining() < 2 + length) {
+				close();
+				throw new OutputFullException();
+			}
+			return out.putShort((short) length).put(type);
+		}
+
+		private void putDice(ByteBuffer frame) {
+			for (int die : game.getDice()) {
+				frame.put((byte) die);
+			}
+		}
+
+		/*
+		 * Writes what the socket takes now, and has the selector write
+		 * the rest once the socket has room
+		 */
+		void flush() {
+			if (closed) {
+				return;
+			}
+			out.flip();
+			try {
+				channel.write(out);
+			} catch (IOException e) {
+				out.clear();
+				close();
+				return;
+			}
+			boolean more = out.hasRemaining();
+			out.compact();
+			int ops = more ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+			if (key.isValid() && key.interestOps() != ops) {
+				key.interestOps(ops);
+			}
+		}
+
+		private void fail(String reason) {
+			byte[] text = reason.getBytes(StandardCharsets.UTF_8);
+			if (!closed && out.remaining() >= HEADER_BYTES + text.length
+					&& HEADER_BYTES + text.length <= MAX_FRAME_BYTES) {
+				out.putShort((short) (text.length + 1)).put(ERROR).put(text);
+			}
+			flush();
+			close();
+		}
+
+		void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			game = null;
+			connections.decrementAndGet();
+			key.cancel();
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// closing anyway
+			}
+		}
+	}
+
+	/*
+	 * Thrown out of a frame handler when the client is not reading and
+	 * its connection was dropped
+	 */
+	private static class OutputFullException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * File: GameSnapshot.java
+ * -----------------------
+ * Everything needed to continue a game where it stopped: names, the
+ * round and whose turn is next, and the Scorecard. On disk each player
+ * has the used categories as a 13-bit mask, the 13 category scores as
+ * shorts and whether the free BONUS is gone. Encoded it is a couple of
+ * hundred bytes, so saving and loading cost next to nothing.
+ *
+ * Format (little-endian): magic, version, player count, round, next
+ * player, then per player the name (length + UTF-8), used mask, a
+ * flag byte and scores in slot order (see YahtzeeScorer.slotOf). The
+ * flag byte is a bit set, BONUS used and computer player so far; bits
+ * nobody set are 0, so adding one keeps older saves readable.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import acm.util.ErrorException;
+
+public final class GameSnapshot implements YahtzeeConstants2 {
+
+	private static final int MAGIC = 0x59534156; // "YSAV"
+	private static final short VERSION = 1;
+
+	/* bits of a player's flag byte */
+	private static final int BONUS_USED = 1;
+	private static final int COMPUTER = 2;
+
+	private final String[] playerNames;
+	private final Scorecard card;
+	private final boolean[] computer;
+	private final int round;
+	private final int playerIndex;
+
+	/**
+	 * Captures the game state, where round and playerIndex (both from 0)
+	 * say whose turn comes next and bots has a policy for every seat the
+	 * computer plays (null for people). The scorecard is copied.
+	 */
+	public GameSnapshot(String[] playerNames, Scorecard card, GamePolicy[] bots, int round, int playerIndex) {
+		this(playerNames.clone(), card.copy(), new boolean[playerNames.length], round, playerIndex);
+		for (int p = 0; p < bots.length; p++) {
+			computer[p] = bots[p] != null;
+		}
+	}
+
+	private GameSnapshot(String[] playerNames, Scorecard card, boolean[] computer, int round, int playerIndex) {
+		this.playerNames = playerNames;
+		this.card = card;
+		this.computer = computer;
+		this.round = round;
+		this.playerIndex = playerIndex;
+	}
+
+	public String[] getPlayerNames() {
+		return playerNames.clone();
+	}
+
+	/** Round of the next turn, from 0; TOTAL_ROUNDS once every round is played */
+	public int getRound() {
+		return round;
+	}
+
+	/** Index of the player whose turn is next */
+	public int getPlayerIndex() {
+		return playerIndex;
+	}
+
+	/** True if the computer plays for player */
+	public boolean isComputer(int player) {
+		return computer[player];
+	}
+
+	/** A copy of the saved scorecard */
+	public Scorecard getScorecard() {
+		return card.copy();
+	}
+
+	/**
+	 * Returns the snapshot as bytes in the format described above
+	 */
+	public byte[] encode() {
+		byte[][] names = new byte[playerNames.length][];
+		int bytes = 9;
+		for (int p = 0; p < names.length; p++) {
+			names[p] = playerNames[p].getBytes(StandardCharsets.UTF_8);
+			bytes += 2 + names[p].length + 3 + 2 * N_SCORING_CATEGORIES;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putShort(VERSION);
+		buffer.put((byte) names.length).put((byte) round).put((byte) playerIndex);
+		for (int p = 0; p < names.length; p++) {
+			buffer.putShort((short) names[p].length).put(names[p]);
+			int flags = (card.isBonusUsed(p) ? BONUS_USED : 0) | (computer[p] ? COMPUTER : 0);
+			buffer.putShort((short) card.usedMask(p)).put((byte) flags);
+			for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+				buffer.putShort((short) card.score(p, YahtzeeScorer.categoryOf(slot)));
+			}
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Reads a snapshot back from encode's bytes
+	 */
+	public static GameSnapshot decode(byte[] bytes) throws IOException {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("not a saved game");
+			}
+			short version = buffer.getShort();
+			if (version != VERSION) {
+				throw new IOException("saved game has version " + version + ", expected " + VERSION);
+			}
+			int n = buffer.get();
+			int round = buffer.get();
+			int playerIndex = buffer.get();
+			if (n < MIN_PLAYERS || n > MAX_PLAYERS || round < 0 || round > TOTAL_ROUNDS || playerIndex < 0
+					|| playerIndex >= n) {
+				throw new IOException("saved game is corrupt");
+			}
+			String[] names = new String[n];
+			Scorecard card = new Scorecard(n);
+			boolean[] computer = new boolean[n];
+			for (int p = 0; p < n; p++) {
+				byte[] name = new byte[buffer.getShort() & 0xffff];
+				buffer.get(name);
+				names[p] = new String(name, StandardCharsets.UTF_8);
+				int usedMask = buffer.getShort();
+				int flags = buffer.get();
+				if ((flags & BONUS_USED) != 0) {
+					card.markBonusUsed(p);
+				}
+				computer[p] = (flags & COMPUTER) != 0;
+				for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+					int score = buffer.getShort();
+					if ((usedMask & (1 << slot)) != 0) {
+						card.record(p, YahtzeeScorer.categoryOf(slot), score);
+					}
+				}
+			}
+			return new GameSnapshot(names, card, computer, round, playerIndex);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("saved game is truncated");
+		} catch (ErrorException e) {
+			throw new IOException("saved game is corrupt: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the snapshot in file, or returns null if there is none
+	 */
+	public static GameSnapshot read(File file) throws IOException {
+		if (!file.exists()) {
+			return null;
+		}
+		return decode(Files.readAllBytes(file.toPath()));
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file and moves it into place,
+	 * so a crash leaves either the previous snapshot or this one
+	 */
+	public void write(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile("yahtzee-autosave", ".tmp", parent);
+		ByteBuffer buffer = ByteBuffer.wrap(encode());
+		try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
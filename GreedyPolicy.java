@@ -0,0 +1,54 @@
+/*
+ * File: GreedyPolicy.java
+ * -----------------------
+ * A simple player: chases the face it has most of, then takes the
+ * category worth the most points right now.
+ */
+
+public class GreedyPolicy implements GamePolicy, YahtzeeConstants2 {
+
+	private final int[] counts = new int[YahtzeeScorer.N_FACES + 1];
+
+	@Override
+	public int chooseReroll(int[] dice, int rerollsLeft, int usedMask, int upper) {
+		java.util.Arrays.fill(counts, 0);
+		int target = 1;
+		for (int die : dice) {
+			counts[die]++;
+		}
+		for (int face = 1; face <= YahtzeeScorer.N_FACES; face++) {
+			if (counts[face] >= counts[target]) {
+				target = face;
+			}
+		}
+		if (counts[target] == N_DICE) {
+			return 0; // nothing better to roll for
+		}
+		int mask = 0;
+		for (int n = 0; n < dice.length; n++) {
+			if (dice[n] != target) {
+				mask |= 1 << n;
+			}
+		}
+		return mask;
+	}
+
+	@Override
+	public int chooseCategory(int[] dice, int usedMask, int upper) {
+		int key = YahtzeeScorer.encode(dice);
+		int best = -1;
+		int bestScore = -1;
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			if ((usedMask & (1 << slot)) == 0) {
+				int category = YahtzeeScorer.categoryOf(slot);
+				int score = YahtzeeScorer.score(key, category);
+				if (score > bestScore) {
+					bestScore = score;
+					best = category;
+				}
+			}
+		}
+		return best;
+	}
+
+}
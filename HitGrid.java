@@ -0,0 +1,205 @@
+/*
+ * File: HitGrid.java
+ * ------------------
+ * Hit-testing for the objects a player can click, kept apart from the
+ * canvas display list so decoration (snow, labels) costs nothing. The
+ * canvas is cut into square cells and every item is listed in the
+ * cells it covers, so a click looks at one cell only.
+ *
+ * Items remember where they were over the last TRAIL_LENGTH moves and
+ * when, and are listed in every cell of that trail. A click can then
+ * be tested against where an item was when the click happened rather
+ * than where it is by the time the event is handled, which for the
+ * falling surprise can be a frame or two later.
+ *
+ * Not thread-safe; the window uses it on the event-dispatch thread.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class HitGrid<T> {
+
+	/** Number of past positions kept per item */
+	public static final int TRAIL_LENGTH = 16;
+
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final ArrayList<Entry<T>>[] cells;
+	private final HashMap<T, Entry<T>> entries = new HashMap<>();
+	private long moves = 0;
+
+	/**
+	 * A grid over width x height with square cells of cellSize. Items
+	 * outside the area are listed in the nearest edge cells.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public HitGrid(double width, double height, double cellSize) {
+		this.cellSize = cellSize;
+		this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+		this.cells = new ArrayList[columns * rows];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Adds item, or moves it if it is already here, with its bounds at
+	 * time when (in the clock of MouseEvent.getWhen). A round item is hit
+	 * only inside the ellipse that fits its bounds.
+	 */
+	public void put(T item, double x, double y, double width, double height, boolean round, long when) {
+		Entry<T> entry = entries.get(item);
+		if (entry == null) {
+			entry = new Entry<>(item);
+			entries.put(item, entry);
+		} else {
+			unlist(entry);
+		}
+		entry.width = width;
+		entry.height = height;
+		entry.round = round;
+		int at = entry.next;
+		entry.trailX[at] = x;
+		entry.trailY[at] = y;
+		entry.trailWhen[at] = when;
+		entry.next = (at + 1) % TRAIL_LENGTH;
+		entry.count = Math.min(entry.count + 1, TRAIL_LENGTH);
+		entry.order = moves++;
+		list(entry);
+	}
+
+	/**
+	 * Forgets item; clicks no longer hit it, even at earlier times
+	 */
+	public void remove(T item) {
+		Entry<T> entry = entries.remove(item);
+		if (entry != null) {
+			unlist(entry);
+		}
+	}
+
+	/**
+	 * Forgets every item
+	 */
+	public void clear() {
+		for (ArrayList<Entry<T>> cell : cells) {
+			cell.clear();
+		}
+		entries.clear();
+	}
+
+	/**
+	 * Returns the item that covered (x, y) at time when, or null. If
+	 * several did, the one moved last wins, like the topmost object on
+	 * a canvas.
+	 */
+	public T find(double x, double y, long when) {
+		Entry<T> hit = null;
+		for (Entry<T> entry : cells[cell(column(x), row(y))]) {
+			if ((hit == null || entry.order > hit.order) && entry.covers(x, y, when)) {
+				hit = entry;
+			}
+		}
+		return hit == null ? null : hit.item;
+	}
+
+	/** Number of items */
+	public int size() {
+		return entries.size();
+	}
+
+	/*
+	 * Lists entry in every cell its trail touches
+	 */
+	private void list(Entry<T> entry) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < entry.count; i++) {
+			minX = Math.min(minX, entry.trailX[i]);
+			minY = Math.min(minY, entry.trailY[i]);
+			maxX = Math.max(maxX, entry.trailX[i]);
+			maxY = Math.max(maxY, entry.trailY[i]);
+		}
+		entry.firstColumn = column(minX);
+		entry.lastColumn = column(maxX + entry.width);
+		entry.firstRow = row(minY);
+		entry.lastRow = row(maxY + entry.height);
+		for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+			for (int column = entry.firstColumn; column <= entry.lastColumn; column++) {
+				cells[cell(column, row)].add(entry);
+			}
+		}
+	}
+
+	private void unlist(Entry<T> entry) {
+		for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+			for (int column = entry.firstColumn; column <= entry.lastColumn; column++) {
+				cells[cell(column, row)].remove(entry);
+			}
+		}
+	}
+
+	private int column(double x) {
+		return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+	}
+
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+	}
+
+	private int cell(int column, int row) {
+		return row * columns + column;
+	}
+
+	/*
+	 * One item, its size and its last positions (a ring buffer)
+	 */
+	private static final class Entry<T> {
+		final T item;
+		final double[] trailX = new double[TRAIL_LENGTH];
+		final double[] trailY = new double[TRAIL_LENGTH];
+		final long[] trailWhen = new long[TRAIL_LENGTH];
+		int next = 0;
+		int count = 0;
+		double width;
+		double height;
+		boolean round;
+		long order;
+		int firstColumn, lastColumn, firstRow, lastRow;
+
+		Entry(T item) {
+			this.item = item;
+		}
+
+		/*
+		 * Where the item was at when: its last position not after when,
+		 * or its oldest one if when is older than the trail
+		 */
+		boolean covers(double x, double y, long when) {
+			int at = -1;
+			for (int k = 1; k <= count; k++) { // newest first
+				at = (next - k + TRAIL_LENGTH) % TRAIL_LENGTH;
+				if (trailWhen[at] <= when) {
+					break;
+				}
+			}
+			double dx = x - trailX[at];
+			double dy = y - trailY[at];
+			if (dx < 0 || dy < 0 || dx >= width || dy >= height) {
+				return false;
+			}
+			if (!round) {
+				return true;
+			}
+			double nx = (dx - width / 2) / (width / 2);
+			double ny = (dy - height / 2) / (height / 2);
+			return nx * nx + ny * ny <= 1;
+		}
+	}
+
+}
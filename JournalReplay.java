@@ -0,0 +1,162 @@
+/*
+ * File: JournalReplay.java
+ * ------------------------
+ * Rebuilds a game's Scorecard from its journal without any graphics.
+ * Every score is worked out again from the dice of the player's last
+ * roll, doubled for BONUS and with SURPRISE_POINTS for a caught
+ * surprise, so the replay checks the log rather than echoing it; a
+ * score that does not match the journaled one is reported. Run it on a
+ * journal to settle a dispute or check a total:
+ *
+ *   java JournalReplay [journal] [repeat]
+ *
+ * It prints the last game's scorecard, any mismatches and how many
+ * records per second the replay read (repeat replays the file that many
+ * times).
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class JournalReplay implements GameJournal.Listener, YahtzeeConstants2 {
+
+	private String[] playerNames = new String[0];
+	private Scorecard card = new Scorecard(0);
+	private int[] santaPoints = new int[0];
+	private int[][] lastDice = new int[0][];
+	private final List<String> mismatches = new ArrayList<>();
+	private int games = 0;
+	private boolean finished = false;
+
+	public static void main(String[] args) {
+		File file = new File(args.length > 0 ? args[0] : GameJournal.DEFAULT_FILE);
+		int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		JournalReplay replay = new JournalReplay();
+		long records = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++) {
+			replay = new JournalReplay();
+			records += GameJournal.replay(file, replay);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(replay);
+		System.out.printf("%d records in %.3f s (%.0f records/s)%n", records, seconds, records / seconds);
+	}
+
+	@Override
+	public void gameStarted(String[] names, long startSeconds) {
+		int n = names.length;
+		playerNames = names;
+		card = new Scorecard(n);
+		santaPoints = new int[n];
+		lastDice = new int[n][];
+		games++;
+		finished = false;
+	}
+
+	@Override
+	public void rolled(int player, int[] dice, int rerollMask, boolean firstRoll) {
+		lastDice[player] = dice.clone(); // the journal reuses its array
+	}
+
+	/*
+	 * Scores the category from the player's last roll, not from the
+	 * journaled score, and notes it when the two differ
+	 */
+	@Override
+	public void categoryScored(int player, int category, int score, int flags) {
+		int[] dice = lastDice[player];
+		int expected = dice == null ? 0 : YahtzeeScorer.score(dice, category);
+		if ((flags & GameJournal.FLAG_BONUS) != 0) {
+			expected *= 2;
+			card.markBonusUsed(player);
+		}
+		if ((flags & GameJournal.FLAG_SURPRISE) != 0) {
+			expected += SURPRISE_POINTS;
+		}
+		if (dice == null || expected != score) {
+			mismatches.add(String.format("game %d, %s, category %d: journal says %d, dice %s give %d", games,
+					playerNames[player], category, score, dice == null ? "(none)" : Arrays.toString(dice),
+					expected));
+		}
+		card.record(player, category, expected);
+		lastDice[player] = null; // the next score needs a new roll
+	}
+
+	@Override
+	public void bonusPressed(int player, boolean accepted) {
+	}
+
+	@Override
+	public void surpriseCaught(int player) {
+	}
+
+	@Override
+	public void santa(int player, int choice, int points) {
+		santaPoints[player] = points;
+	}
+
+	@Override
+	public void gameEnded() {
+		finished = true;
+	}
+
+	/** Scorecard of the last game in the journal */
+	public Scorecard getScorecard() {
+		return card;
+	}
+
+	public String[] getPlayerNames() {
+		return playerNames;
+	}
+
+	/**
+	 * Journaled scores that the dice, BONUS and surprise do not add up
+	 * to, one line each, over every game replayed
+	 */
+	public List<String> getMismatches() {
+		return new ArrayList<>(mismatches);
+	}
+
+	/** Number of games the journal holds */
+	public int getGames() {
+		return games;
+	}
+
+	/** False if the last game was cut off before its end */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Upper section, upper bonus, lower section and SANTA points added
+	 * up the way endOfGame does
+	 */
+	public int total(int player) {
+		return card.total(player) + card.upperBonus(player) + santaPoints[player];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		out.append(games).append(games == 1 ? " game" : " games").append(finished ? "" : ", last one unfinished");
+		for (int p = 0; p < playerNames.length; p++) {
+			out.append(String.format("%n%-12s", playerNames[p]));
+			for (int c = ONES; c <= CHANCE; c++) {
+				if (YahtzeeScorer.isScoringCategory(c)) {
+					out.append(String.format("%4s", card.isUsed(p, c) ? card.score(p, c) : "-"));
+				}
+			}
+			out.append(String.format("  SANTA %d  total %d", santaPoints[p], total(p)));
+		}
+		out.append(String.format("%n%d %s not match the dice", mismatches.size(),
+				mismatches.size() == 1 ? "score does" : "scores do"));
+		for (String mismatch : mismatches) {
+			out.append(String.format("%n  %s", mismatch));
+		}
+		return out.toString();
+	}
+
+}
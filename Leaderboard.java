@@ -0,0 +1,542 @@
+/*
+ * File: Leaderboard.java
+ * ----------------------
+ * Every finished game, kept for good: each player's name, 13 category
+ * scores, SANTA points and final total. Games are appended to a log
+ * and never rewritten. Like the journal, a game survives a crash of
+ * the program as soon as it is written and reaches the disk at the
+ * next index save. Queries do not read the log as a whole, they use
+ * an index kept in memory:
+ *
+ *  - a histogram of totals, for percentiles
+ *  - the TOP_KEPT best results, for top-K lists
+ *  - each player's best result and game count, by name
+ *
+ * and then read only the results they return from the log. The index
+ * is saved next to the log every SAVE_EVERY games and on close, with
+ * the log length it covers, so opening reads the index plus the games
+ * logged after it rather than the whole history.
+ *
+ *   java Leaderboard [k] [file]             top k results
+ *   java Leaderboard bench [games] [file]   appends random games, times queries
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import acm.util.ErrorException;
+
+public class Leaderboard implements AutoCloseable, YahtzeeConstants2 {
+
+/** File the log is stored in when no other file is given */
+	public static final String DEFAULT_FILE = "yahtzee-leaderboard.bin";
+
+/** The index of a log is stored in the log's name plus this */
+	public static final String INDEX_SUFFIX = ".idx";
+
+/** The most results a top-K query can return */
+	public static final int TOP_KEPT = 1000;
+
+/** Longer names are stored, and looked up, cut to this many UTF-8 bytes */
+	public static final int MAX_NAME_BYTES = 255;
+
+	private static final int MAGIC = 0x594C4244; // "YLBD"
+	private static final int INDEX_MAGIC = 0x594C4249; // "YLBI"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 8;
+	private static final int SAVE_EVERY = 64;
+
+	/* totals below LOWEST_TOTAL or above it plus HISTOGRAM_SIZE are counted at the ends */
+	private static final int LOWEST_TOTAL = -SANTA_MAX_POINTS;
+	private static final int HISTOGRAM_SIZE = 4096;
+
+	/* a result is (offset of its game << PLAYER_BITS) | player */
+	private static final int PLAYER_BITS = 2;
+	private static final int REF_BITS = 42;
+	private static final long REF_MASK = (1L << REF_BITS) - 1;
+
+	private final File file;
+	private final FileChannel channel;
+	private long end; // log length, where the next game goes
+
+	private long results = 0;
+	private final int[] histogram = new int[HISTOGRAM_SIZE];
+	/* (total << REF_BITS) | (REF_MASK - ref), so equal totals rank the earlier game first */
+	private final TreeSet<Long> top = new TreeSet<>();
+	private final HashMap<String, PlayerStats> players = new HashMap<>();
+	private int unsaved = 0;
+
+	private Leaderboard(File file, FileChannel channel) {
+		this.file = file;
+		this.channel = channel;
+	}
+
+	/**
+	 * Opens (or creates) the log in file and brings its index up to date
+	 */
+	public static Leaderboard open(File file) {
+		try {
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			Leaderboard board = new Leaderboard(file, channel);
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+				header.flip();
+				channel.write(header, 0);
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			channel.read(header, 0);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				channel.close();
+				throw new IOException("not a leaderboard");
+			}
+			board.end = board.loadIndex();
+			board.replay();
+			return board;
+		} catch (IOException e) {
+			throw new ErrorException("Cannot open leaderboard " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Appends a finished game. Totals are computed like endOfGame: both
+	 * sections, the upper bonus and SANTA's points.
+	 */
+	public synchronized void record(String[] names, Scorecard card, int[] santaPoints) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 1 + names.length * (1 + MAX_NAME_BYTES + N_SCORING_CATEGORIES + 4));
+		buffer.putInt(0).putLong(System.currentTimeMillis()).put((byte) names.length);
+		for (int p = 0; p < names.length; p++) {
+			byte[] name = nameBytes(names[p]);
+			buffer.put((byte) name.length).put(name);
+			for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+				buffer.put((byte) card.score(p, YahtzeeScorer.categoryOf(slot)));
+			}
+			int total = card.total(p) + card.upperBonus(p) + santaPoints[p];
+			buffer.putShort((short) santaPoints[p]).putShort((short) total);
+		}
+		buffer.putInt(0, buffer.position() - 4);
+		buffer.flip();
+		try {
+			long offset = end;
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, offset + buffer.position());
+			}
+			end = offset + buffer.limit();
+			index(offset, buffer);
+			if (++unsaved >= SAVE_EVERY) {
+				saveIndex();
+			}
+		} catch (IOException e) {
+			throw new ErrorException("Cannot record game in " + file + ": " + e.getMessage());
+		}
+	}
+
+	/*
+	 * name in UTF-8, cut to MAX_NAME_BYTES without splitting a character
+	 */
+	private static byte[] nameBytes(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length <= MAX_NAME_BYTES) {
+			return bytes;
+		}
+		int length = MAX_NAME_BYTES;
+		while ((bytes[length] & 0xc0) == 0x80) { // bytes[length] continues the last character
+			length--;
+		}
+		return Arrays.copyOf(bytes, length);
+	}
+
+	/*
+	 * name as record stores it, which is how games are indexed
+	 */
+	private static String storedName(String name) {
+		return new String(nameBytes(name), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The k best results ever, best first (at most TOP_KEPT)
+	 */
+	public synchronized List<Entry> top(int k) {
+		List<Entry> list = new ArrayList<>();
+		Iterator<Long> keys = top.descendingIterator();
+		while (list.size() < k && keys.hasNext()) {
+			list.add(entry(REF_MASK - (keys.next() & REF_MASK)));
+		}
+		return list;
+	}
+
+	/**
+	 * Player's best result, null if they never finished a game
+	 */
+	public synchronized Entry best(String name) {
+		PlayerStats stats = players.get(storedName(name));
+		return stats == null ? null : entry(stats.bestRef);
+	}
+
+	/** Games player has finished */
+	public synchronized int gamesPlayed(String name) {
+		PlayerStats stats = players.get(storedName(name));
+		return stats == null ? 0 : stats.games;
+	}
+
+	/**
+	 * Share of all recorded results, in percent, that are lower than total
+	 */
+	public synchronized double percentile(int total) {
+		if (results == 0) {
+			return 0;
+		}
+		long below = 0;
+		for (int i = 0, bucket = bucket(total); i < bucket; i++) {
+			below += histogram[i];
+		}
+		return 100.0 * below / results;
+	}
+
+	/** Results recorded, one per player per game */
+	public synchronized long size() {
+		return results;
+	}
+
+	/**
+	 * Saves the index and closes the log
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			if (unsaved > 0) {
+				saveIndex();
+			}
+			channel.close();
+		} catch (IOException e) {
+			throw new ErrorException("Cannot close leaderboard " + file + ": " + e.getMessage());
+		}
+	}
+
+	private static int bucket(int total) {
+		return Math.max(0, Math.min(HISTOGRAM_SIZE - 1, total - LOWEST_TOTAL));
+	}
+
+	/*
+	 * Adds the results of the game at offset, whose record is in buffer
+	 * from position 0
+	 */
+	private void index(long offset, ByteBuffer buffer) {
+		buffer.position(4 + 8);
+		int n = buffer.get();
+		for (int p = 0; p < n; p++) {
+			byte[] name = new byte[buffer.get() & 0xff];
+			buffer.get(name);
+			buffer.position(buffer.position() + N_SCORING_CATEGORIES + 2);
+			int total = buffer.getShort();
+			long ref = (offset << PLAYER_BITS) | p;
+			results++;
+			histogram[bucket(total)]++;
+			long key = ((long) bucket(total) << REF_BITS) | (REF_MASK - ref);
+			if (top.size() < TOP_KEPT || key > top.first()) {
+				top.add(key);
+				if (top.size() > TOP_KEPT) {
+					top.pollFirst();
+				}
+			}
+			String player = new String(name, StandardCharsets.UTF_8);
+			PlayerStats stats = players.get(player);
+			if (stats == null) {
+				stats = new PlayerStats();
+				stats.bestTotal = Integer.MIN_VALUE;
+				players.put(player, stats);
+			}
+			stats.games++;
+			if (total > stats.bestTotal) {
+				stats.bestTotal = total;
+				stats.bestRef = ref;
+			}
+		}
+	}
+
+	/*
+	 * Indexes the games logged after the saved index. A game cut short
+	 * by a crash is cut off the log.
+	 */
+	private void replay() throws IOException {
+		long size = channel.size();
+		ByteBuffer length = ByteBuffer.allocate(4);
+		while (end + 4 <= size) {
+			length.clear();
+			channel.read(length, end);
+			int bytes = length.getInt(0);
+			if (bytes <= 0 || end + 4 + bytes > size) {
+				break;
+			}
+			ByteBuffer record = ByteBuffer.allocate(4 + bytes);
+			while (record.hasRemaining()) {
+				channel.read(record, end + record.position());
+			}
+			index(end, record);
+			end += 4 + bytes;
+			unsaved++;
+		}
+		if (end < size) {
+			channel.truncate(end);
+		}
+	}
+
+	/*
+	 * Reads the result ref from the log
+	 */
+	private Entry entry(long ref) {
+		long offset = ref >>> PLAYER_BITS;
+		try {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			channel.read(length, offset);
+			ByteBuffer record = ByteBuffer.allocate(4 + length.getInt(0));
+			while (record.hasRemaining()) {
+				channel.read(record, offset + record.position());
+			}
+			record.position(4);
+			long time = record.getLong();
+			int n = record.get();
+			for (int p = 0; p < n; p++) {
+				byte[] name = new byte[record.get() & 0xff];
+				record.get(name);
+				int[] scores = new int[N_SCORING_CATEGORIES];
+				for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+					scores[slot] = record.get() & 0xff;
+				}
+				int santa = record.getShort();
+				int total = record.getShort();
+				if (p == (int) (ref & ((1 << PLAYER_BITS) - 1))) {
+					return new Entry(new String(name, StandardCharsets.UTF_8), time, scores, santa, total);
+				}
+			}
+			throw new IOException("no player " + (ref & 3) + " at " + offset);
+		} catch (IOException e) {
+			throw new ErrorException("Cannot read leaderboard " + file + ": " + e.getMessage());
+		}
+	}
+
+	private File indexFile() {
+		return new File(file.getPath() + INDEX_SUFFIX);
+	}
+
+	/*
+	 * Loads the saved index and returns the log length it covers. A
+	 * missing, damaged or stale index means indexing the log again.
+	 */
+	private long loadIndex() throws IOException {
+		File index = indexFile();
+		if (!index.exists()) {
+			return HEADER_BYTES;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+				return HEADER_BYTES;
+			}
+			long covered = in.readLong();
+			if (covered > channel.size()) {
+				return HEADER_BYTES;
+			}
+			results = in.readLong();
+			for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+				histogram[i] = in.readInt();
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				top.add(in.readLong());
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				PlayerStats stats = new PlayerStats();
+				String name = in.readUTF();
+				stats.bestTotal = in.readInt();
+				stats.bestRef = in.readLong();
+				stats.games = in.readInt();
+				players.put(name, stats);
+			}
+			return covered;
+		} catch (EOFException e) {
+			results = 0;
+			java.util.Arrays.fill(histogram, 0);
+			top.clear();
+			players.clear();
+			return HEADER_BYTES;
+		}
+	}
+
+	/*
+	 * Writes the index to a temporary file and moves it into place. The
+	 * log is forced first, so the index never covers games that are
+	 * not on disk.
+	 */
+	private void saveIndex() throws IOException {
+		channel.force(false);
+		File index = indexFile();
+		File temp = File.createTempFile("yahtzee-leaderboard", ".tmp", index.getAbsoluteFile().getParentFile());
+		try (FileOutputStream stream = new FileOutputStream(temp);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(end);
+			out.writeLong(results);
+			for (int count : histogram) {
+				out.writeInt(count);
+			}
+			out.writeInt(top.size());
+			for (long key : top) {
+				out.writeLong(key);
+			}
+			out.writeInt(players.size());
+			for (java.util.Map.Entry<String, PlayerStats> player : players.entrySet()) {
+				out.writeUTF(player.getKey());
+				out.writeInt(player.getValue().bestTotal);
+				out.writeLong(player.getValue().bestRef);
+				out.writeInt(player.getValue().games);
+			}
+			out.flush();
+			stream.getFD().sync();
+		}
+		Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		unsaved = 0;
+	}
+
+	/*
+	 * Prints the top results, or fills a log with random games and times
+	 * the queries on it
+	 */
+	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("bench")) {
+			bench(args.length > 1 ? Integer.parseInt(args[1]) : 1000000,
+					new File(args.length > 2 ? args[2] : "yahtzee-leaderboard-bench.bin"));
+			return;
+		}
+		int k = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		try (Leaderboard board = open(new File(args.length > 1 ? args[1] : DEFAULT_FILE))) {
+			System.out.println(board.size() + " results");
+			int rank = 1;
+			for (Entry entry : board.top(k)) {
+				System.out.printf("%3d. %-20s %5d  (SANTA %+d, %tF)%n", rank++, entry.getName(), entry.getTotal(),
+						entry.getSantaPoints(), entry.getTime());
+			}
+		}
+	}
+
+	private static void bench(int games, File file) {
+		SplittableRandom random = new SplittableRandom(42);
+		String[] pool = new String[10000];
+		for (int i = 0; i < pool.length; i++) {
+			pool[i] = "player" + i;
+		}
+		long start = System.nanoTime();
+		try (Leaderboard board = open(file)) {
+			System.out.printf("Opened %d results in %.1f ms%n", board.size(), (System.nanoTime() - start) / 1e6);
+			start = System.nanoTime();
+			for (int g = 0; g < games; g++) {
+				int n = 1 + random.nextInt(MAX_PLAYERS);
+				String[] names = new String[n];
+				Scorecard card = new Scorecard(n);
+				int[] santa = new int[n];
+				for (int p = 0; p < n; p++) {
+					names[p] = pool[random.nextInt(pool.length)];
+					for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+						int category = YahtzeeScorer.categoryOf(slot);
+						card.record(p, category, YahtzeeScorer.scoreOfIndex(random.nextInt(YahtzeeScorer.N_ROLLS), category));
+					}
+					santa[p] = random.nextInt(2 * SANTA_MAX_POINTS + 1) - SANTA_MAX_POINTS;
+				}
+				board.record(names, card, santa);
+			}
+			System.out.printf("Recorded %d games in %.1f s, %d results in all%n", games, (System.nanoTime() - start) / 1e9,
+					board.size());
+			int queries = 10000;
+			start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				board.top(10);
+			}
+			System.out.printf("top 10:     %.1f us%n", (System.nanoTime() - start) / 1e3 / queries);
+			start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				board.best(pool[q % pool.length]);
+			}
+			System.out.printf("best:       %.1f us%n", (System.nanoTime() - start) / 1e3 / queries);
+			start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				board.percentile(100 + q % 200);
+			}
+			System.out.printf("percentile: %.1f us%n", (System.nanoTime() - start) / 1e3 / queries);
+		}
+		start = System.nanoTime();
+		try (Leaderboard board = open(file)) {
+			System.out.printf("Reopened %d results in %.1f ms%n", board.size(), (System.nanoTime() - start) / 1e6);
+		}
+	}
+
+	/*
+	 * What the index knows about one player
+	 */
+	private static class PlayerStats {
+		int bestTotal;
+		long bestRef;
+		int games;
+	}
+
+	/**
+	 * One player's result in one game
+	 */
+	public static final class Entry {
+		private final String name;
+		private final long time;
+		private final int[] scores;
+		private final int santaPoints;
+		private final int total;
+
+		private Entry(String name, long time, int[] scores, int santaPoints, int total) {
+			this.name = name;
+			this.time = time;
+			this.scores = scores;
+			this.santaPoints = santaPoints;
+			this.total = total;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** When the game ended, in milliseconds since 1970 */
+		public long getTime() {
+			return time;
+		}
+
+		/** Score of category (ONES..CHANCE) */
+		public int getScore(int category) {
+			return scores[YahtzeeScorer.slotOf(category)];
+		}
+
+		public int getSantaPoints() {
+			return santaPoints;
+		}
+
+		/** Final total: both sections, the upper bonus and SANTA */
+		public int getTotal() {
+			return total;
+		}
+	}
+
+}
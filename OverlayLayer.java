@@ -0,0 +1,89 @@
+/*
+ * File: OverlayLayer.java
+ * -----------------------
+ * Labels drawn over the scorecard during a turn: the vertical BONUS
+ * letters and the surprise result. They are made and added to the
+ * canvas once, hidden, and from then on only their text, color and
+ * visibility change, so the number of objects on the canvas stays the
+ * same however many turns are played. Every method changes the canvas
+ * and runs on the event-dispatch thread, as a SceneQueue command or an
+ * animation frame, so a batch of changes is repainted once.
+ */
+
+import java.awt.Color;
+
+import acm.graphics.GCanvas;
+import acm.graphics.GLabel;
+
+public class OverlayLayer implements Animation {
+
+	private static final String BONUS_TEXT = "BONUS";
+	private static final double BONUS_X = 570;
+	private static final double BONUS_Y = 70;
+	private static final double BONUS_LETTER_OFFSET = 50;
+	private static final double RESULT_X = 340;
+	private static final double RESULT_Y = 315;
+
+	private final AnimationClock clock;
+	private final GLabel[] bonusLetters = new GLabel[BONUS_TEXT.length()];
+	private final GLabel result = new GLabel("");
+	private final int resultFrames;
+	private int resultFramesLeft = 0;
+
+	/**
+	 * Adds the hidden labels to canvas. The result stays up for
+	 * resultFrames frames of clock.
+	 */
+	public OverlayLayer(GCanvas canvas, AnimationClock clock, int resultFrames) {
+		this.clock = clock;
+		this.resultFrames = resultFrames;
+		for (int i = 0; i < bonusLetters.length; i++) {
+			bonusLetters[i] = new GLabel(String.valueOf(BONUS_TEXT.charAt(i)));
+			bonusLetters[i].setColor(Color.YELLOW);
+			bonusLetters[i].setFont("Arial-Bold-24");
+			bonusLetters[i].setVisible(false);
+			canvas.add(bonusLetters[i], BONUS_X, BONUS_Y + i * BONUS_LETTER_OFFSET);
+		}
+		result.setFont("Arial-Bold-24");
+		result.setVisible(false);
+		canvas.add(result, RESULT_X, RESULT_Y);
+	}
+
+	/**
+	 * Shows or hides the BONUS letters
+	 */
+	public void showBonus(boolean shown) {
+		for (GLabel letter : bonusLetters) {
+			letter.setVisible(shown);
+			if (shown) {
+				letter.sendToFront();
+			}
+		}
+	}
+
+	/**
+	 * Shows text in color for a while. A result shown while the last one
+	 * is still up replaces it and starts the wait again.
+	 */
+	public void showResult(String text, Color color) {
+		result.setLabel(text);
+		result.setColor(color);
+		result.setVisible(true);
+		result.sendToFront();
+		resultFramesLeft = resultFrames;
+		clock.register(this);
+	}
+
+	/**
+	 * Counts down the frames of the result, then hides it
+	 */
+	@Override
+	public boolean step() {
+		if (--resultFramesLeft > 0) {
+			return true;
+		}
+		result.setVisible(false);
+		return false;
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * File: PackedDiceSource.java
+ * ---------------------------
+ * The default DiceSource, on top of SplittableRandom. A roll of all
+ * five dice is one number in 0..6^5-1 = 0..7775, read off a 64-bit
+ * random value 13 bits at a time: a chunk of 7776 or more is thrown
+ * away and the next one is tried, so every roll is equally likely. Four
+ * chunks fit in one value and 95% of chunks are kept, so a roll almost
+ * never needs a second nextLong. The number is turned into faces with a
+ * table. Rerolling fewer dice uses the same kind of roll, because the
+ * faces of the roll are independent of each other.
+ *
+ *   java PackedDiceSource [rolls]   times it against one nextInt per die
+ */
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import acm.util.ErrorException;
+
+public final class PackedDiceSource implements DiceSource, YahtzeeConstants2 {
+
+	/* number of distinct ordered rolls of all dice */
+	private static final int ROLLS = pow(YahtzeeScorer.N_FACES, N_DICE);
+
+	private static final int CHUNK_BITS = 32 - Integer.numberOfLeadingZeros(ROLLS - 1);
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+	private static final int CHUNKS = Long.SIZE / CHUNK_BITS;
+
+	/* bits per face in FACES */
+	private static final int FACE_BITS = 3;
+
+	/* FACES[roll]: face of die n in bits FACE_BITS*n and up */
+	private static final int[] FACES = new int[ROLLS];
+
+	static {
+		for (int roll = 0; roll < ROLLS; roll++) {
+			int rest = roll;
+			for (int n = 0; n < N_DICE; n++) {
+				FACES[roll] |= (1 + rest % YahtzeeScorer.N_FACES) << (FACE_BITS * n);
+				rest /= YahtzeeScorer.N_FACES;
+			}
+		}
+	}
+
+	private final SplittableRandom random;
+
+	public PackedDiceSource(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private PackedDiceSource(SplittableRandom random) {
+		this.random = random;
+	}
+
+	@Override
+	public void roll(int[] dice, int rerollMask) {
+		if (dice.length > N_DICE) {
+			throw new ErrorException("Cannot roll " + dice.length + " dice, only " + N_DICE);
+		}
+		int faces = nextFaces();
+		for (int n = 0; n < dice.length; n++) {
+			if ((rerollMask & (1 << n)) != 0) {
+				dice[n] = faces >>> (FACE_BITS * n) & ((1 << FACE_BITS) - 1);
+			}
+		}
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	@Override
+	public DiceSource split() {
+		return new PackedDiceSource(random.split());
+	}
+
+	/*
+	 * One uniform roll of all dice, packed like FACES
+	 */
+	private int nextFaces() {
+		while (true) {
+			long bits = random.nextLong();
+			for (int chunk = 0; chunk < CHUNKS; chunk++) {
+				int roll = (int) bits & CHUNK_MASK;
+				if (roll < ROLLS) {
+					return FACES[roll];
+				}
+				bits >>>= CHUNK_BITS;
+			}
+		}
+	}
+
+	private static int pow(int base, int exponent) {
+		int result = 1;
+		for (int i = 0; i < exponent; i++) {
+			result *= base;
+		}
+		return result;
+	}
+
+	public static void main(String[] args) {
+		int rolls = args.length > 0 ? Integer.parseInt(args[0]) : 50000000;
+		int allDice = (1 << N_DICE) - 1;
+		for (int pass = 0; pass < 2; pass++) { // the first pass warms up the JIT
+			int[] dice = new int[N_DICE];
+			long[] counts = new long[YahtzeeScorer.N_FACES + 1];
+			Random shared = new Random(pass);
+			long start = System.nanoTime();
+			for (int r = 0; r < rolls; r++) { // what RandomGenerator.nextInt(1, 6) per die does
+				for (int n = 0; n < N_DICE; n++) {
+					dice[n] = 1 + shared.nextInt(YahtzeeScorer.N_FACES);
+				}
+				counts[dice[r % N_DICE]]++;
+			}
+			double perDie = (System.nanoTime() - start) / (double) rolls;
+			java.util.Arrays.fill(counts, 0); // the check below is of the packed rolls only
+			DiceSource source = DiceSource.seeded(pass);
+			start = System.nanoTime();
+			for (int r = 0; r < rolls; r++) {
+				source.roll(dice, allDice);
+				for (int face : dice) {
+					counts[face]++;
+				}
+			}
+			double packed = (System.nanoTime() - start) / (double) rolls;
+			if (pass == 1) {
+				System.out.printf("%d rolls of %d dice: %.1f ns with Random per die, %.1f ns packed (%.1fx)%n",
+						rolls, N_DICE, perDie, packed, perDie / packed);
+				double expected = (double) rolls * N_DICE / YahtzeeScorer.N_FACES;
+				double chiSquare = 0;
+				for (int face = 1; face <= YahtzeeScorer.N_FACES; face++) {
+					chiSquare += (counts[face] - expected) * (counts[face] - expected) / expected;
+				}
+				System.out.printf("face counts chi-square %.2f with %d degrees of freedom%n", chiSquare,
+						YahtzeeScorer.N_FACES - 1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * File: ParticleLayer.java
+ * ------------------------
+ * All falling snowflakes as one object on the canvas. Positions and
+ * speeds live in plain arrays and every flake is drawn in a single
+ * paint pass, so the canvas holds one object however much it snows,
+ * nothing is reordered each tick, and clicks pass straight through.
+ * Like the rest of the scene it is only touched on the event-dispatch
+ * thread (see SceneQueue), so it needs no locking.
+ */
+
+import java.awt.Graphics;
+import java.awt.Image;
+
+import acm.graphics.GObject;
+import acm.graphics.GRectangle;
+
+public class ParticleLayer extends GObject {
+
+	private final Image sprite;
+	private final int size;
+	private final int capacity;
+	private float[] x;
+	private float[] y;
+	private float[] speed;
+	private int count = 0;
+	private double width, height;
+
+	/**
+	 * sprite is drawn as is, so it should already be size x size.
+	 * At most capacity particles are alive at once.
+	 */
+	public ParticleLayer(Image sprite, int size, int capacity) {
+		this.sprite = sprite;
+		this.size = size;
+		this.capacity = capacity;
+		int initial = Math.min(capacity, 64);
+		x = new float[initial];
+		y = new float[initial];
+		speed = new float[initial];
+	}
+
+	/**
+	 * Adds a particle at (px, py) falling speed pixels per step.
+	 * Ignored when the layer is full.
+	 */
+	public void spawn(double px, double py, double fallSpeed) {
+		if (count == x.length) {
+			if (count == capacity) {
+				return;
+			}
+			int grown = Math.min(capacity, count * 2);
+			x = java.util.Arrays.copyOf(x, grown);
+			y = java.util.Arrays.copyOf(y, grown);
+			speed = java.util.Arrays.copyOf(speed, grown);
+		}
+		x[count] = (float) px;
+		y[count] = (float) py;
+		speed[count] = (float) fallSpeed;
+		count++;
+	}
+
+	/**
+	 * Moves every particle down by its speed and drops those that
+	 * went past bottom
+	 */
+	public void step(double bottom) {
+		for (int i = count - 1; i >= 0; i--) {
+			if (y[i] + size > bottom) {
+				count--; // move the last particle into this slot
+				x[i] = x[count];
+				y[i] = y[count];
+				speed[i] = speed[count];
+			} else {
+				y[i] += speed[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes every particle
+	 */
+	public void clear() {
+		count = 0;
+	}
+
+	/** Number of live particles */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Area the layer covers, normally the whole canvas
+	 */
+	public void setArea(double width, double height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void paint(Graphics g) {
+		int left = (int) getX();
+		int top = (int) getY();
+		for (int i = 0; i < count; i++) {
+			g.drawImage(sprite, left + (int) x[i], top + (int) y[i], null);
+		}
+	}
+
+	@Override
+	public GRectangle getBounds() {
+		return new GRectangle(getX(), getY(), width, height);
+	}
+
+	/*
+	 * Decoration only: never the answer to getElementAt
+	 */
+	@Override
+	public boolean contains(double px, double py) {
+		return false;
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * File: PerformanceOverlay.java
+ * -----------------------------
+ * Diagnostics drawn in the corner of the canvas: frame time (p50/p99),
+ * how long the animation step took, live snowflakes, canvas objects,
+ * heap allocation rate, GC activity and how long each image and sound
+ * took to load. It runs as an animation on the shared clock, so it
+ * costs nothing while hidden. Numbers are sampled every frame but
+ * turned into text only a few times a second, so drawing the overlay
+ * barely shows up in what it measures.
+ */
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import acm.graphics.GCanvas;
+import acm.graphics.GObject;
+import acm.graphics.GRectangle;
+
+public class PerformanceOverlay extends GObject implements Animation {
+
+	private static final int SAMPLES = 128;
+	private static final long TEXT_EVERY_NANOS = 250_000_000L;
+	private static final int LINE_HEIGHT = 14;
+	private static final int WIDTH = 260;
+	private static final Font FONT = new Font("Monospaced", Font.PLAIN, 11);
+	private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+
+	private final AnimationClock clock;
+	private final GCanvas canvas;
+	private final IntSupplier particles;
+	private final Supplier<Map<String, Double>> loadTimes;
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+	/* ring buffers of the last SAMPLES frames */
+	private final long[] frameNanos = new long[SAMPLES];
+	private final long[] stepNanos = new long[SAMPLES];
+	private final long[] sorted = new long[SAMPLES];
+	private int samples = 0;
+	private long lastFrame = 0;
+
+	private long lastText = 0;
+	private long lastAllocated = -1;
+	private long lastGcCount = 0;
+	private long lastGcMillis = 0;
+	private String[] lines = { "collecting..." };
+	private boolean showing = false;
+
+	/**
+	 * particles reports how many snowflakes are alive, loadTimes the
+	 * milliseconds each asset took to load
+	 */
+	public PerformanceOverlay(AnimationClock clock, GCanvas canvas, IntSupplier particles,
+			Supplier<Map<String, Double>> loadTimes) {
+		this.clock = clock;
+		this.canvas = canvas;
+		this.particles = particles;
+		this.loadTimes = loadTimes;
+	}
+
+	/**
+	 * Shows the overlay if hidden, hides it if shown. Call on the EDT.
+	 */
+	public void toggle() {
+		showing = !showing;
+		if (showing) {
+			samples = 0;
+			lastFrame = 0;
+			lastAllocated = -1;
+			canvas.add(this, 5, 5); // added last, so already in front
+			clock.register(this);
+		} else {
+			clock.unregister(this);
+			canvas.remove(this);
+		}
+	}
+
+	public boolean isShowing() {
+		return showing;
+	}
+
+	@Override
+	public boolean step() {
+		long now = System.nanoTime();
+		if (lastFrame != 0) {
+			int slot = samples++ % SAMPLES;
+			frameNanos[slot] = now - lastFrame;
+			stepNanos[slot] = clock.getLastFrameNanos();
+		}
+		lastFrame = now;
+		if (now - lastText >= TEXT_EVERY_NANOS) {
+			updateText(now);
+			lastText = now;
+		}
+		raiseIfCovered();
+		return showing;
+	}
+
+	/*
+	 * Moves the overlay to the front only when something was added
+	 * above it since, so a frame normally reorders nothing
+	 */
+	private void raiseIfCovered() {
+		int count = canvas.getElementCount();
+		if (count > 0 && canvas.getElement(count - 1) != this) {
+			sendToFront();
+		}
+	}
+
+	/*
+	 * Turns the samples into the lines that paint draws
+	 */
+	private void updateText(long now) {
+		int n = Math.min(samples, SAMPLES);
+		double seconds = (now - lastText) / 1e9;
+		long gcCount = 0;
+		long gcMillis = 0;
+		for (GarbageCollectorMXBean collector : collectors) {
+			gcCount += Math.max(0, collector.getCollectionCount());
+			gcMillis += Math.max(0, collector.getCollectionTime());
+		}
+		long allocated = allocatedBytes();
+		String allocation = "n/a";
+		if (allocated >= 0 && lastAllocated >= 0 && lastText != 0) {
+			allocation = String.format("%.1f MB/s", (allocated - lastAllocated) / seconds / (1 << 20));
+		}
+		List<String> text = new ArrayList<>();
+		text.add(String.format("frame  p50 %5.1f  p99 %5.1f ms", percentile(frameNanos, n, 0.5), percentile(frameNanos, n, 0.99)));
+		text.add(String.format("step   p50 %5.2f  p99 %5.2f ms", percentile(stepNanos, n, 0.5), percentile(stepNanos, n, 0.99)));
+		text.add(String.format("flakes %d   objects %d", particles.getAsInt(), canvas.getElementCount()));
+		text.add("alloc  " + allocation);
+		text.add(String.format("GC     %d (%d ms) since last", gcCount - lastGcCount, gcMillis - lastGcMillis));
+		for (Map.Entry<String, Double> load : loadTimes.get().entrySet()) {
+			text.add(String.format("load   %-20s %6.1f ms", load.getKey(), load.getValue()));
+		}
+		lines = text.toArray(new String[0]);
+		lastAllocated = allocated;
+		lastGcCount = gcCount;
+		lastGcMillis = gcMillis;
+	}
+
+	private double percentile(long[] values, int n, double fraction) {
+		if (n == 0) {
+			return 0;
+		}
+		System.arraycopy(values, 0, sorted, 0, n);
+		Arrays.sort(sorted, 0, n);
+		return sorted[Math.min(n - 1, (int) (fraction * n))] / 1e6;
+	}
+
+	/*
+	 * Bytes allocated by all live threads so far, -1 if the JVM cannot tell
+	 */
+	private long allocatedBytes() {
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+		if (!sun.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		long total = 0;
+		for (long bytes : sun.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			total += Math.max(0, bytes);
+		}
+		return total;
+	}
+
+	@Override
+	public void paint(Graphics g) {
+		int x = (int) getX();
+		int y = (int) getY();
+		String[] text = lines;
+		g.setColor(BACKGROUND);
+		g.fillRect(x, y, WIDTH, LINE_HEIGHT * text.length + 6);
+		g.setColor(Color.WHITE);
+		g.setFont(FONT);
+		for (int i = 0; i < text.length; i++) {
+			g.drawString(text[i], x + 4, y + LINE_HEIGHT * (i + 1));
+		}
+	}
+
+	@Override
+	public GRectangle getBounds() {
+		return new GRectangle(getX(), getY(), WIDTH, LINE_HEIGHT * lines.length + 6);
+	}
+
+	/*
+	 * Never catches clicks meant for the game
+	 */
+	@Override
+	public boolean contains(double px, double py) {
+		return false;
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * File: PolicyIO.java
+ * -------------------
+ * Lets GamePolicy players sit at a YahtzeeGame table: every seat asks
+ * its own policy, nobody waits for a click, and surprises are caught
+ * at a fixed rate. Run it to time a whole game of four bots:
+ *
+ *   java PolicyIO [games]
+ */
+
+import java.util.SplittableRandom;
+
+public class PolicyIO implements GameIO, YahtzeeConstants2 {
+
+	private static final int WARMUP_GAMES = 200;
+
+	private final GamePolicy[] seats;
+	private final SplittableRandom random;
+	private final double catchRate;
+	private Scorecard card;
+	private int[] totals;
+
+	/**
+	 * seats[p] plays for player p; catchRate is the chance (0..1) of
+	 * catching a surprise
+	 */
+	public PolicyIO(GamePolicy[] seats, double catchRate, long seed) {
+		this.seats = seats.clone();
+		this.catchRate = catchRate;
+		this.random = new SplittableRandom(seed);
+		this.card = new Scorecard(seats.length);
+	}
+
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		BotPolicy[] bots = new BotPolicy[MAX_PLAYERS];
+		for (int p = 0; p < bots.length; p++) {
+			bots[p] = new BotPolicy();
+		}
+		for (int g = 0; g < WARMUP_GAMES; g++) { // let the JIT compile the bots first
+			new YahtzeeGame(bots.length, -g).play(new PolicyIO(bots, 0.5, -g));
+		}
+		for (int p = 0; p < bots.length; p++) {
+			bots[p] = new BotPolicy();
+		}
+		long sum = 0;
+		long start = System.nanoTime();
+		for (int g = 0; g < games; g++) {
+			for (int total : new YahtzeeGame(bots.length, g).play(new PolicyIO(bots, 0.5, g))) {
+				sum += total;
+			}
+		}
+		double millis = (System.nanoTime() - start) / 1e6;
+		long slowest = 0;
+		double mean = 0;
+		long decisions = 0;
+		long overBudget = 0;
+		long cutShort = 0;
+		for (BotPolicy bot : bots) {
+			slowest = Math.max(slowest, bot.getSlowestDecisionNanos());
+			mean += bot.getMeanDecisionNanos() / bots.length;
+			decisions += bot.getDecisions();
+			overBudget += bot.getOverBudgetDecisions();
+			cutShort += bot.getCutShortDecisions();
+		}
+		System.out.printf("%d games of %d bots: %.2f ms per game, mean total %.1f%n", games, bots.length,
+				millis / games, (double) sum / (games * bots.length));
+		System.out.printf("%d decisions: mean %.1f us, slowest %.1f us, %d over the %d us budget, %d cut short%n",
+				decisions, mean / 1e3, slowest / 1e3, overBudget, BotPolicy.BUDGET_NANOS / 1000, cutShort);
+	}
+
+	@Override
+	public void awaitRoll(int player) {
+	}
+
+	@Override
+	public int chooseReroll(int player, int[] dice, int rerollsLeft) {
+		return seats[player].chooseReroll(dice, rerollsLeft, card.usedMask(player), card.upper(player));
+	}
+
+	@Override
+	public int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise) {
+		return seats[player].chooseCategory(dice, card.usedMask(player), card.upper(player));
+	}
+
+	@Override
+	public boolean useBonus(int player, int category, int[] dice) {
+		int round = Integer.bitCount(card.usedMask(player));
+		return seats[player].useBonus(category, YahtzeeScorer.score(dice, category), round);
+	}
+
+	@Override
+	public boolean catchSurprise(int player) {
+		return random.nextDouble() < catchRate;
+	}
+
+	@Override
+	public int santaChoice(int player, int reward) {
+		int total = card.total(player) + card.upperBonus(player);
+		return seats[player].acceptSanta(total) ? 1 + random.nextInt(2) : 0;
+	}
+
+	@Override
+	public void santaResult(int player, int points) {
+	}
+
+	@Override
+	public void scored(int player, int category, int score, Scorecard card) {
+		this.card = card;
+	}
+
+	@Override
+	public void gameOver(Scorecard card, int[] totals) {
+		this.card = card;
+		this.totals = totals.clone();
+	}
+
+	/** Final totals, once the game is over */
+	public int[] getTotals() {
+		return totals == null ? null : totals.clone();
+	}
+
+}
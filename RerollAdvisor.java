@@ -0,0 +1,227 @@
+/*
+ * File: RerollAdvisor.java
+ * ------------------------
+ * Hints for the player while the dice are on the table: what each hold
+ * selection is expected to score and where the roll goes if the player
+ * stops now, valued the way BotPolicy values categories.
+ *
+ * The tables behind it are built once and shared: for every category
+ * and every keep (see DiceTransitions), the expected score when the
+ * rest of the turn chases only that category, with 0, 1 or 2 rerolls
+ * still to come after the keep is rolled. The 13 categories are
+ * independent, so they are built in parallel on the common fork/join
+ * pool. A hint reads them only: for each hold, the row for the rerolls
+ * left at the hold's keep in every open category, and nothing is
+ * enumerated or allocated but the Hint itself.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public final class RerollAdvisor implements YahtzeeConstants2 {
+
+/** The number of hold selections of N_DICE dice */
+	public static final int N_HOLDS = 1 << N_DICE;
+
+	private static final String[] NAMES = { "", "Ones", "Twos", "Threes", "Fours", "Fives", "Sixes", "", "",
+			"Three of a Kind", "Four of a Kind", "Full House", "Small Straight", "Large Straight", "Yahtzee",
+			"Chance" };
+
+	private static RerollAdvisor shared = null;
+
+	/* chase[after][slot][keep]: expected score of slot from keep with after rerolls to come */
+	private final double[][][] chase;
+
+	/* expected score of each slot when a whole turn chases only it */
+	private final double[] baseline = new double[N_SCORING_CATEGORIES];
+
+	private RerollAdvisor(double[][][] chase) {
+		this.chase = chase;
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			baseline[slot] = chase[2][slot][DiceTransitions.EMPTY_KEEP];
+		}
+	}
+
+	/**
+	 * The advisor every caller shares; the first call builds the tables
+	 */
+	public static synchronized RerollAdvisor shared() {
+		if (shared == null) {
+			shared = build();
+		}
+		return shared;
+	}
+
+	/*
+	 * One fork/join task per category, each filling its own rows
+	 */
+	private static RerollAdvisor build() {
+		double[][][] chase = new double[3][N_SCORING_CATEGORIES][DiceTransitions.N_KEEPS];
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[N_SCORING_CATEGORIES];
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			int s = slot;
+			tasks[slot] = ForkJoinPool.commonPool().submit(() -> fillChase(chase, s));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return new RerollAdvisor(chase);
+	}
+
+	private static void fillChase(double[][][] chase, int slot) {
+		int category = YahtzeeScorer.categoryOf(slot);
+		double[] rollValues = new double[YahtzeeScorer.N_ROLLS];
+		for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+			rollValues[roll] = YahtzeeScorer.scoreOfIndex(roll, category);
+		}
+		for (int after = 0; after < chase.length; after++) {
+			double[] keeps = chase[after][slot];
+			for (int keep = 0; keep < DiceTransitions.N_KEEPS; keep++) {
+				keeps[keep] = DiceTransitions.expected(keep, rollValues);
+			}
+			for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) { // one more reroll before these keeps
+				double best = Double.NEGATIVE_INFINITY;
+				for (int i = DiceTransitions.rollKeepStart(roll); i < DiceTransitions.rollKeepEnd(roll); i++) {
+					best = Math.max(best, keeps[DiceTransitions.rollKeep(i)]);
+				}
+				rollValues[roll] = best;
+			}
+		}
+	}
+
+	/**
+	 * Expected score of category over a whole turn that chases only it
+	 */
+	public double baseline(int category) {
+		return baseline[YahtzeeScorer.slotOf(category)];
+	}
+
+	/**
+	 * Advice for dice with rerollsLeft (0..2) rerolls still allowed,
+	 * given the player's used categories and upper subtotal. A hold is
+	 * rated by its best open category, chased from the hold's keep
+	 * through the rerolls left.
+	 */
+	public Hint advise(int[] dice, int rerollsLeft, int usedMask, int upper) {
+		Hint hint = new Hint(dice, rerollsLeft > 0);
+		int roll = YahtzeeScorer.indexOf(YahtzeeScorer.encode(dice));
+		double bestStop = Double.NEGATIVE_INFINITY;
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			if ((usedMask & (1 << slot)) == 0) {
+				int category = YahtzeeScorer.categoryOf(slot);
+				int score = YahtzeeScorer.scoreOfIndex(roll, category);
+				double value = BotPolicy.categoryValue(score, category, slot, upper);
+				if (value > bestStop) {
+					bestStop = value;
+					hint.stopCategory = category;
+					hint.stopScore = score;
+				}
+			}
+		}
+		if (rerollsLeft > 0) {
+			double[][] rows = chase[rerollsLeft - 1];
+			for (int mask = 0; mask < N_HOLDS; mask++) {
+				int keep = DiceTransitions.keepOf(dice, mask);
+				hint.value[mask] = Double.NEGATIVE_INFINITY;
+				for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+					if ((usedMask & (1 << slot)) == 0) {
+						double expected = rows[slot][keep];
+						double value = BotPolicy.categoryValue(expected, YahtzeeScorer.categoryOf(slot), slot, upper);
+						if (value > hint.value[mask]) {
+							hint.value[mask] = value;
+							hint.expected[mask] = expected;
+						}
+					}
+				}
+			}
+		}
+		return hint;
+	}
+
+	/**
+	 * One roll's advice. Hold masks use the reroll convention of
+	 * DiceTransitions.keepOf: bit n set means die n is rolled again.
+	 */
+	public static final class Hint {
+		private final int[] dice;
+		private final boolean rated;
+		private final double[] expected = new double[N_HOLDS];
+		private final double[] value = new double[N_HOLDS];
+		private int stopCategory = -1;
+		private int stopScore = 0;
+
+		private Hint(int[] dice, boolean rated) {
+			this.dice = dice.clone();
+			this.rated = rated;
+		}
+
+		/** Best category to stop in now (-1 if none is open) */
+		public int getStopCategory() {
+			return stopCategory;
+		}
+
+		public int getStopScore() {
+			return stopScore;
+		}
+
+		/**
+		 * Expected score of the hold's best open category, chased after
+		 * rerolling mask (0 when no reroll is left)
+		 */
+		public double getExpected(int rerollMask) {
+			return expected[rerollMask];
+		}
+
+		/**
+		 * Reroll masks of the n best distinct holds, best first by
+		 * the value of their best open category. Masks that keep the same dice count once.
+		 */
+		public int[] bestHolds(int n) {
+			int[] best = new int[n];
+			int found = 0;
+			int[] keeps = new int[N_HOLDS];
+			boolean[] taken = new boolean[N_HOLDS];
+			for (int mask = 0; mask < N_HOLDS; mask++) {
+				keeps[mask] = DiceTransitions.keepOf(dice, mask);
+			}
+			while (found < n) {
+				int pick = -1;
+				for (int mask = 1; mask < N_HOLDS; mask++) {
+					if (rated && !taken[mask] && (pick < 0 || value[mask] > value[pick])) {
+						pick = mask;
+					}
+				}
+				if (pick < 0) {
+					break;
+				}
+				for (int mask = 0; mask < N_HOLDS; mask++) {
+					taken[mask] |= keeps[mask] == keeps[pick];
+				}
+				best[found++] = pick;
+			}
+			return java.util.Arrays.copyOf(best, found);
+		}
+
+		/**
+		 * "hold 5 5 5 -> 21.3 expected" for a reroll mask
+		 */
+		public String describe(int rerollMask) {
+			StringBuilder text = new StringBuilder("hold");
+			for (int n = 0; n < dice.length; n++) {
+				if ((rerollMask & (1 << n)) == 0) {
+					text.append(' ').append(dice[n]);
+				}
+			}
+			if (rerollMask == N_HOLDS - 1) {
+				text.append(" nothing");
+			}
+			return text.append(String.format(" -> %.1f expected", expected[rerollMask])).toString();
+		}
+
+		/** "stop: Full House for 25" */
+		public String describeStop() {
+			return stopCategory < 0 ? "" : "stop: " + NAMES[stopCategory] + " for " + stopScore;
+		}
+	}
+
+}
@@ -0,0 +1,834 @@
+/*
+ * File: RuleVariant.java
+ * ----------------------
+ * Yahtzee with other dice, faces, categories or table sizes. A variant
+ * is read from a definition in java.util.Properties format; CLASSIC
+ * below is the game YahtzeeScorer plays. The category rules are:
+ *
+ *   face F              the dice showing F count F each (upper section)
+ *   sum-of-kind K       all dice count if K of them show one face
+ *   kind K P            P points if K dice show one face
+ *   house A B P         P points for A dice of one face and B of another
+ *   straight L P        P points for L faces in a row
+ *   chance              all dice count
+ *
+ * From a definition the tables YahtzeeScorer and DiceTransitions hold
+ * for the classic game are built: the score of every roll in every
+ * category and, for every keep, the rolls it can turn into and how
+ * likely each is. Rolls and keeps are numbered by their rank among all
+ * multisets of their size, which takes one table read per face, and
+ * when the packed keys are small enough a key-to-index table makes
+ * scoring one lookup, as it is in YahtzeeScorer. Categories and ranges
+ * of keeps and rolls do not depend on each other, so the tables are
+ * filled in parallel on the common fork/join pool. VariantGame plays a
+ * variant at a full table with nothing but these tables.
+ *
+ *   java RuleVariant [file]   builds a variant (classic without a file)
+ *                             and times it; classic is also checked
+ *                             against YahtzeeScorer and DiceTransitions
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import acm.util.ErrorException;
+
+public final class RuleVariant {
+
+/** The classic game, in slot order (see YahtzeeScorer.slotOf) */
+	public static final String CLASSIC = String.join("\n",
+			"name = Classic",
+			"dice = 5",
+			"faces = 6",
+			"rolls = 3",
+			"players = 4",
+			"upper.threshold = 63",
+			"upper.bonus = 35",
+			"category.1 = Ones: face 1",
+			"category.2 = Twos: face 2",
+			"category.3 = Threes: face 3",
+			"category.4 = Fours: face 4",
+			"category.5 = Fives: face 5",
+			"category.6 = Sixes: face 6",
+			"category.7 = Three of a Kind: sum-of-kind 3",
+			"category.8 = Four of a Kind: sum-of-kind 4",
+			"category.9 = Full House: house 3 2 25",
+			"category.10 = Small Straight: straight 4 30",
+			"category.11 = Large Straight: straight 5 40",
+			"category.12 = Yahtzee: kind 5 50",
+			"category.13 = Chance: chance");
+
+/** Most dice, and most faces, a variant can have */
+	public static final int MAX_DICE = 15;
+
+/** Most categories a variant can have, one bit each in a used mask */
+	public static final int MAX_CATEGORIES = 32;
+
+/** Most players at one table */
+	public static final int MAX_TABLE_PLAYERS = 255;
+
+	/* limits on table sizes, so a definition cannot ask for gigabytes */
+	private static final long MAX_KEEPS = 1 << 22;
+	private static final long MAX_OUTCOMES = 1 << 24;
+
+	/* packed keys up to this wide get a direct key-to-index table */
+	private static final int DIRECT_KEY_BITS = 20;
+
+	private static final int WARMUP_PASSES = 10;
+
+	/* keeps or rolls per fork/join task */
+	private static final int CHUNK = 256;
+
+	private static final int FACE = 0;
+	private static final int SUM_OF_KIND = 1;
+	private static final int KIND = 2;
+	private static final int HOUSE = 3;
+	private static final int STRAIGHT = 4;
+	private static final int CHANCE = 5;
+	private static final String[] RULE_NAMES = { "face", "sum-of-kind", "kind", "house", "straight", "chance" };
+	private static final int[] RULE_ARGS = { 1, 1, 2, 3, 2, 0 };
+
+	private final String name;
+	private final int nDice;
+	private final int nFaces;
+	private final int rollsPerTurn;
+	private final int maxPlayers;
+	private final int upperThreshold;
+	private final int upperBonus;
+	private final Rule[] rules;
+
+	private final int bitsPerFace;
+	private final long faceMask;
+	private final int nRolls;
+	private final int nKeeps;
+	/* (parts * (nDice+1) + total) * (nDice+1) + count -> multisets of total over parts ranked before count */
+	private final int[] cumulative;
+	private final long[] rollKey;
+	private final long[] keepKey;
+	/* key -> index, null when keys are too wide for a table */
+	private final int[] rollOfKey;
+	private final int[] keepOfKey;
+	/* roll * categories + category -> score */
+	private final int[] scores;
+	/* outcomes of keep k are outRoll/outProbability[outStart[k] .. outStart[k+1]) */
+	private final int[] outStart;
+	private final int[] outRoll;
+	private final double[] outProbability;
+	/* distinct keeps of roll r are rollKeep[rollKeepStart[r] .. rollKeepStart[r+1]) */
+	private final int[] rollKeepStart;
+	private final int[] rollKeep;
+	/* addKeys[s], addProbability[s]: every roll of s dice and its probability */
+	private final long[][] addKeys;
+	private final double[][] addProbability;
+	private final long buildNanos;
+
+	private RuleVariant(String name, int nDice, int nFaces, int rollsPerTurn, int maxPlayers, int upperThreshold,
+			int upperBonus, Rule[] rules) {
+		long start = System.nanoTime();
+		this.name = name;
+		this.nDice = nDice;
+		this.nFaces = nFaces;
+		this.rollsPerTurn = rollsPerTurn;
+		this.maxPlayers = maxPlayers;
+		this.upperThreshold = upperThreshold;
+		this.upperBonus = upperBonus;
+		this.rules = rules;
+		bitsPerFace = 32 - Integer.numberOfLeadingZeros(nDice);
+		faceMask = (1L << bitsPerFace) - 1;
+		long keeps = multisets(nDice, nFaces + 1);
+		long outcomes = multisets(nDice, 2 * nFaces);
+		if (keeps > MAX_KEEPS || outcomes > MAX_OUTCOMES) {
+			throw new ErrorException(name + ": " + nDice + " dice with " + nFaces + " faces need "
+					+ outcomes + " reroll outcomes, more than " + MAX_OUTCOMES);
+		}
+		nRolls = (int) multisets(nDice, nFaces);
+		nKeeps = (int) keeps;
+		cumulative = cumulativeTable();
+		rollKey = new long[nRolls];
+		keepKey = new long[nKeeps];
+		boolean direct = bitsPerFace * nFaces <= DIRECT_KEY_BITS;
+		rollOfKey = direct ? new int[1 << (bitsPerFace * nFaces)] : null;
+		keepOfKey = direct ? new int[1 << (bitsPerFace * nFaces)] : null;
+		addKeys = new long[nDice + 1][];
+		addProbability = new double[nDice + 1][];
+		fillKeys();
+		scores = new int[nRolls * rules.length];
+		outStart = new int[nKeeps + 1];
+		for (int k = 0; k < nKeeps; k++) {
+			outStart[k + 1] = outStart[k] + addKeys[nDice - sizeOf(keepKey[k])].length;
+		}
+		outRoll = new int[outStart[nKeeps]];
+		outProbability = new double[outStart[nKeeps]];
+		rollKeepStart = new int[nRolls + 1];
+		for (int r = 0; r < nRolls; r++) {
+			int subsets = 1;
+			for (int f = 0; f < nFaces; f++) {
+				subsets *= count(rollKey[r], f) + 1;
+			}
+			rollKeepStart[r + 1] = rollKeepStart[r] + subsets;
+		}
+		rollKeep = new int[rollKeepStart[nRolls]];
+		fillTables();
+		buildNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * The classic game
+	 */
+	public static RuleVariant classic() {
+		Properties definition = new Properties();
+		try {
+			definition.load(new StringReader(CLASSIC));
+		} catch (IOException e) {
+			throw new ErrorException(e);
+		}
+		return parse(definition, "Classic");
+	}
+
+	/**
+	 * Reads a variant definition from file and builds its tables
+	 */
+	public static RuleVariant load(File file) {
+		Properties definition = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			definition.load(in);
+		} catch (IOException e) {
+			throw new ErrorException("Cannot read variant " + file + ": " + e.getMessage());
+		}
+		return parse(definition, file.getName());
+	}
+
+	/**
+	 * Builds the variant a definition describes; name is used when the
+	 * definition has none
+	 */
+	public static RuleVariant parse(Properties definition, String name) {
+		name = definition.getProperty("name", name).trim();
+		int dice = intProperty(definition, name, "dice", -1, 1, MAX_DICE);
+		int faces = intProperty(definition, name, "faces", -1, 2, MAX_DICE);
+		int rolls = intProperty(definition, name, "rolls", 3, 1, Integer.MAX_VALUE);
+		int players = intProperty(definition, name, "players", 4, 1, MAX_TABLE_PLAYERS);
+		int threshold = intProperty(definition, name, "upper.threshold", 0, 0, Integer.MAX_VALUE);
+		int bonus = intProperty(definition, name, "upper.bonus", 0, 0, Integer.MAX_VALUE);
+		List<Rule> rules = new ArrayList<>();
+		for (int n = 1; definition.getProperty("category." + n) != null; n++) {
+			if (n > MAX_CATEGORIES) {
+				throw new ErrorException(name + ": more than " + MAX_CATEGORIES + " categories");
+			}
+			rules.add(Rule.parse(name + ": category." + n, definition.getProperty("category." + n), dice, faces));
+		}
+		if (rules.isEmpty()) {
+			throw new ErrorException(name + ": no categories (category.1, category.2, ...)");
+		}
+		return new RuleVariant(name, dice, faces, rolls, players, threshold, bonus, rules.toArray(new Rule[0]));
+	}
+
+	private static int intProperty(Properties definition, String name, String key, int fallback, int min, int max) {
+		String text = definition.getProperty(key);
+		if (text == null && fallback >= 0) {
+			return fallback;
+		}
+		try {
+			int value = Integer.parseInt(text == null ? "" : text.trim());
+			if (value < min || value > max) {
+				throw new ErrorException(name + ": " + key + " must be between " + min + " and " + max);
+			}
+			return value;
+		} catch (NumberFormatException e) {
+			throw new ErrorException(name + ": " + key + " needs a number");
+		}
+	}
+
+	/*
+	 * Every multiset of up to nDice dice, with its rank as a keep and,
+	 * for full rolls, as a roll; also the rolls of each smaller number
+	 * of dice, which rerolls add to keeps
+	 */
+	private void fillKeys() {
+		if (rollOfKey != null) {
+			Arrays.fill(rollOfKey, -1);
+			Arrays.fill(keepOfKey, -1);
+		}
+		fillKeys(0, 0L, nDice);
+		int[] filled = new int[nDice + 1];
+		for (int s = 0; s <= nDice; s++) {
+			addKeys[s] = new long[(int) multisets(s, nFaces)];
+			addProbability[s] = new double[addKeys[s].length];
+		}
+		for (long key : keepKey) {
+			int s = sizeOf(key);
+			addProbability[s][filled[s]] = multinomial(key, s) / Math.pow(nFaces, s);
+			addKeys[s][filled[s]++] = key;
+		}
+	}
+
+	private void fillKeys(int face, long key, int diceLeft) {
+		if (face == nFaces) {
+			int keep = rank(key, nFaces + 1);
+			keepKey[keep] = key;
+			if (keepOfKey != null) {
+				keepOfKey[(int) key] = keep;
+			}
+			if (diceLeft == 0) {
+				int roll = rank(key, nFaces);
+				rollKey[roll] = key;
+				if (rollOfKey != null) {
+					rollOfKey[(int) key] = roll;
+				}
+			}
+			return;
+		}
+		for (int n = 0; n <= diceLeft; n++) {
+			fillKeys(face + 1, key + ((long) n << (bitsPerFace * face)), diceLeft - n);
+		}
+	}
+
+	/*
+	 * One task per category for the scores, and tasks over ranges of
+	 * keeps and rolls for the transitions; each writes its own part
+	 */
+	private void fillTables() {
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int c = 0; c < rules.length; c++) {
+			int category = c;
+			tasks.add(ForkJoinPool.commonPool().submit(() -> fillScores(category)));
+		}
+		for (int from = 0; from < nKeeps; from += CHUNK) {
+			int first = from;
+			tasks.add(ForkJoinPool.commonPool().submit(() -> fillOutcomes(first, Math.min(nKeeps, first + CHUNK))));
+		}
+		for (int from = 0; from < nRolls; from += CHUNK) {
+			int first = from;
+			tasks.add(ForkJoinPool.commonPool().submit(() -> fillRollKeeps(first, Math.min(nRolls, first + CHUNK))));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	private void fillScores(int category) {
+		int[] counts = new int[nFaces];
+		for (int roll = 0; roll < nRolls; roll++) {
+			for (int f = 0; f < nFaces; f++) {
+				counts[f] = count(rollKey[roll], f);
+			}
+			scores[roll * rules.length + category] = rules[category].score(counts);
+		}
+	}
+
+	private void fillOutcomes(int from, int to) {
+		for (int k = from; k < to; k++) {
+			int free = nDice - sizeOf(keepKey[k]);
+			long[] adds = addKeys[free];
+			for (int i = 0, pos = outStart[k]; i < adds.length; i++, pos++) {
+				outRoll[pos] = rollIndexOfKey(keepKey[k] + adds[i]);
+				outProbability[pos] = addProbability[free][i];
+			}
+		}
+	}
+
+	/*
+	 * Counts through every sub-multiset of each roll like an odometer,
+	 * so each distinct keep is listed once without trying hold masks
+	 */
+	private void fillRollKeeps(int from, int to) {
+		for (int r = from; r < to; r++) {
+			long key = rollKey[r];
+			long held = 0;
+			int pos = rollKeepStart[r];
+			while (true) {
+				rollKeep[pos++] = keepIndexOfKey(held);
+				int f = 0;
+				while (f < nFaces && count(held, f) == count(key, f)) {
+					held -= (long) count(held, f) << (bitsPerFace * f);
+					f++;
+				}
+				if (f == nFaces) {
+					break;
+				}
+				held += 1L << (bitsPerFace * f);
+			}
+		}
+	}
+
+	/*
+	 * Multisets of total dice over parts faces are ordered by the count
+	 * of the first face, then the second, and so on; this table says
+	 * how many come before a given first count
+	 */
+	private int[] cumulativeTable() {
+		int stride = nDice + 1;
+		int[] table = new int[(nFaces + 2) * stride * stride];
+		for (int parts = 2; parts <= nFaces + 1; parts++) {
+			for (int total = 0; total <= nDice; total++) {
+				int before = 0;
+				for (int first = 0; first <= total; first++) {
+					table[(parts * stride + total) * stride + first] = before;
+					before += (int) multisets(total - first, parts - 1);
+				}
+			}
+		}
+		return table;
+	}
+
+	/*
+	 * Rank of key among the multisets of nDice over parts faces; for
+	 * keeps parts is nFaces + 1, the last face holding the dice not kept
+	 */
+	private int rank(long key, int parts) {
+		int stride = nDice + 1;
+		int rank = 0;
+		int left = nDice;
+		for (int f = 0; f < parts - 1; f++) {
+			int c = count(key, f);
+			rank += cumulative[((parts - f) * stride + left) * stride + c];
+			left -= c;
+		}
+		return rank;
+	}
+
+	private int rollIndexOfKey(long key) {
+		return rollOfKey != null ? rollOfKey[(int) key] : rank(key, nFaces);
+	}
+
+	private int keepIndexOfKey(long key) {
+		return keepOfKey != null ? keepOfKey[(int) key] : rank(key, nFaces + 1);
+	}
+
+	private int count(long key, int face) {
+		return (int) (key >>> (bitsPerFace * face) & faceMask);
+	}
+
+	private int sizeOf(long key) {
+		int size = 0;
+		for (int f = 0; f < nFaces; f++) {
+			size += count(key, f);
+		}
+		return size;
+	}
+
+	private double multinomial(long key, int n) {
+		double result = factorial(n);
+		for (int f = 0; f < nFaces; f++) {
+			result /= factorial(count(key, f));
+		}
+		return result;
+	}
+
+	private static double factorial(int n) {
+		double result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+
+	/*
+	 * Number of multisets of total dice over parts faces
+	 */
+	private static long multisets(int total, int parts) {
+		long result = 1;
+		for (int i = 1; i < parts; i++) {
+			result = result * (total + i) / i;
+		}
+		return result;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getDice() {
+		return nDice;
+	}
+
+	public int getFaces() {
+		return nFaces;
+	}
+
+	/** Rolls in one turn, the first one included */
+	public int getRollsPerTurn() {
+		return rollsPerTurn;
+	}
+
+	public int getMaxPlayers() {
+		return maxPlayers;
+	}
+
+	/** Number of categories, which are numbered from 0 */
+	public int getCategories() {
+		return rules.length;
+	}
+
+	public String getCategoryName(int category) {
+		return rules[category].name;
+	}
+
+	/** True for face categories, which count towards the upper bonus */
+	public boolean isUpper(int category) {
+		return rules[category].kind == FACE;
+	}
+
+	/**
+	 * Bonus points for an upper section total
+	 */
+	public int upperBonus(int upper) {
+		return upperBonus > 0 && upper >= upperThreshold ? upperBonus : 0;
+	}
+
+	/** Number of distinct rolls (order does not matter) */
+	public int getRolls() {
+		return nRolls;
+	}
+
+	/** Number of distinct keeps, from no dice up to all of them */
+	public int getKeeps() {
+		return nKeeps;
+	}
+
+	/** How long building the tables took */
+	public long getBuildNanos() {
+		return buildNanos;
+	}
+
+	/**
+	 * Index of the roll dice (values 1..getFaces()), order ignored
+	 */
+	public int indexOf(int[] dice) {
+		long key = 0;
+		for (int i = 0; i < dice.length; i++) {
+			key += 1L << (bitsPerFace * (dice[i] - 1));
+		}
+		return rollIndexOfKey(key);
+	}
+
+	/**
+	 * Score of dice in category (0..getCategories()-1)
+	 */
+	public int score(int[] dice, int category) {
+		return scores[indexOf(dice) * rules.length + category];
+	}
+
+	public int scoreOfIndex(int roll, int category) {
+		return scores[roll * rules.length + category];
+	}
+
+	/**
+	 * Keep index left after rerolling the dice whose bit is set in
+	 * rerollMask, like DiceTransitions.keepOf
+	 */
+	public int keepOf(int[] dice, int rerollMask) {
+		long key = 0;
+		for (int n = 0; n < dice.length; n++) {
+			if ((rerollMask & (1 << n)) == 0) {
+				key += 1L << (bitsPerFace * (dice[n] - 1));
+			}
+		}
+		return keepIndexOfKey(key);
+	}
+
+	/** Dice showing face (1..getFaces()) that keep holds */
+	public int keptCount(int keep, int face) {
+		return count(keepKey[keep], face - 1);
+	}
+
+	/** Index of the keep of no dice, i.e. the first roll of a turn */
+	public int emptyKeep() {
+		return keepIndexOfKey(0);
+	}
+
+	public int outcomeStart(int keep) {
+		return outStart[keep];
+	}
+
+	public int outcomeEnd(int keep) {
+		return outStart[keep + 1];
+	}
+
+	/** Roll index of outcome i */
+	public int outcomeRoll(int i) {
+		return outRoll[i];
+	}
+
+	/** Probability of outcome i */
+	public double outcomeProbability(int i) {
+		return outProbability[i];
+	}
+
+	public int rollKeepStart(int roll) {
+		return rollKeepStart[roll];
+	}
+
+	public int rollKeepEnd(int roll) {
+		return rollKeepStart[roll + 1];
+	}
+
+	/** Keep index stored at position i of a roll's keep list */
+	public int rollKeep(int i) {
+		return rollKeep[i];
+	}
+
+	/**
+	 * Expected value of rolling again from keep, given the value of every
+	 * resulting roll
+	 */
+	public double expected(int keep, double[] rollValues) {
+		double sum = 0;
+		for (int i = outStart[keep], end = outStart[keep + 1]; i < end; i++) {
+			sum += outProbability[i] * rollValues[outRoll[i]];
+		}
+		return sum;
+	}
+
+	/**
+	 * Expected score of category over a whole turn that chases only it
+	 */
+	public double chase(int category) {
+		double[] values = new double[nRolls];
+		double[] keeps = new double[nKeeps];
+		for (int roll = 0; roll < nRolls; roll++) {
+			values[roll] = scoreOfIndex(roll, category);
+		}
+		for (int reroll = 1; reroll < rollsPerTurn; reroll++) {
+			for (int keep = 0; keep < nKeeps; keep++) {
+				keeps[keep] = expected(keep, values);
+			}
+			for (int roll = 0; roll < nRolls; roll++) {
+				double best = Double.NEGATIVE_INFINITY;
+				for (int i = rollKeepStart[roll]; i < rollKeepStart[roll + 1]; i++) {
+					best = Math.max(best, keeps[rollKeep[i]]);
+				}
+				values[roll] = best;
+			}
+		}
+		return expected(emptyKeep(), values);
+	}
+
+	public static void main(String[] args) {
+		RuleVariant variant = args.length > 0 ? load(new File(args[0])) : classic();
+		System.out.printf("%s: %d dice, %d faces, %d rolls a turn, %d categories, up to %d players%n",
+				variant.name, variant.nDice, variant.nFaces, variant.rollsPerTurn, variant.rules.length,
+				variant.maxPlayers);
+		System.out.printf("%d rolls, %d keeps, %d outcomes, %s index, built in %.1f ms on %d threads%n",
+				variant.nRolls, variant.nKeeps, variant.outRoll.length,
+				variant.rollOfKey != null ? "table" : "ranked", variant.buildNanos / 1e6,
+				ForkJoinPool.getCommonPoolParallelism());
+		boolean classic = args.length == 0;
+		if (classic) {
+			variant.checkClassic();
+			System.out.println("Tables match YahtzeeScorer and DiceTransitions");
+		}
+		int[][] rolls = new int[1 << 16][variant.nDice];
+		SplittableRandom random = new SplittableRandom(42);
+		for (int[] dice : rolls) {
+			for (int n = 0; n < dice.length; n++) {
+				dice[n] = 1 + random.nextInt(variant.nFaces);
+			}
+		}
+		String line = "";
+		for (int pass = 0; pass < WARMUP_PASSES + 1; pass++) { // the first passes warm up the JIT
+			line = String.format("score: %.1f ns", timeScores(variant, rolls));
+			if (classic) {
+				line += String.format(", YahtzeeScorer %.1f ns", timeClassicScores(rolls));
+			}
+		}
+		System.out.println(line);
+		System.out.println("Chasing one category for a whole turn:");
+		for (int c = 0; c < variant.rules.length; c++) {
+			System.out.printf("  %-20s %6.2f%n", variant.rules[c].name, variant.chase(c));
+		}
+	}
+
+	/*
+	 * Nanoseconds per score, over every roll and category
+	 */
+	private static double timeScores(RuleVariant variant, int[][] rolls) {
+		long sum = 0;
+		long start = System.nanoTime();
+		for (int[] dice : rolls) {
+			for (int c = 0; c < variant.rules.length; c++) {
+				sum += variant.score(dice, c);
+			}
+		}
+		return sum < 0 ? -1 : (System.nanoTime() - start) / (double) (rolls.length * variant.rules.length);
+	}
+
+	private static double timeClassicScores(int[][] rolls) {
+		long sum = 0;
+		long start = System.nanoTime();
+		for (int[] dice : rolls) {
+			for (int slot = 0; slot < YahtzeeConstants2.N_SCORING_CATEGORIES; slot++) {
+				sum += YahtzeeScorer.score(dice, YahtzeeScorer.categoryOf(slot));
+			}
+		}
+		return sum < 0 ? -1 : (System.nanoTime() - start) / (double) (rolls.length * YahtzeeConstants2.N_SCORING_CATEGORIES);
+	}
+
+	/*
+	 * Compares every table of the classic variant with YahtzeeScorer and
+	 * DiceTransitions; keys use the same packing there
+	 */
+	private void checkClassic() {
+		for (int roll = 0; roll < nRolls; roll++) {
+			int other = YahtzeeScorer.indexOf((int) rollKey[roll]);
+			for (int slot = 0; slot < rules.length; slot++) {
+				if (scoreOfIndex(roll, slot) != YahtzeeScorer.scoreOfIndex(other, YahtzeeScorer.categoryOf(slot))) {
+					throw new ErrorException("Score differs for roll " + Long.toHexString(rollKey[roll]));
+				}
+			}
+			long[] mine = new long[rollKeepEnd(roll) - rollKeepStart(roll)];
+			long[] theirs = new long[DiceTransitions.rollKeepEnd(other) - DiceTransitions.rollKeepStart(other)];
+			for (int i = 0; i < mine.length; i++) {
+				mine[i] = keepKey[rollKeep[rollKeepStart[roll] + i]];
+			}
+			for (int i = 0; i < theirs.length; i++) {
+				theirs[i] = DiceTransitions.keepKey(DiceTransitions.rollKeep(DiceTransitions.rollKeepStart(other) + i));
+			}
+			Arrays.sort(mine);
+			Arrays.sort(theirs);
+			if (!Arrays.equals(mine, theirs)) {
+				throw new ErrorException("Keeps differ for roll " + Long.toHexString(rollKey[roll]));
+			}
+		}
+		for (int keep = 0; keep < DiceTransitions.N_KEEPS; keep++) {
+			int mine = keepIndexOfKey(DiceTransitions.keepKey(keep));
+			double[] probabilities = new double[nRolls];
+			for (int i = outStart[mine]; i < outStart[mine + 1]; i++) {
+				probabilities[outRoll[i]] += outProbability[i];
+			}
+			for (int i = DiceTransitions.outcomeStart(keep); i < DiceTransitions.outcomeEnd(keep); i++) {
+				int roll = rollIndexOfKey(YahtzeeScorer.keyOf(DiceTransitions.outcomeRoll(i)));
+				probabilities[roll] -= DiceTransitions.outcomeProbability(i);
+			}
+			for (double difference : probabilities) {
+				if (Math.abs(difference) > 1e-12) {
+					throw new ErrorException("Outcomes differ for keep " + Integer.toHexString(DiceTransitions.keepKey(keep)));
+				}
+			}
+		}
+	}
+
+	/*
+	 * One category: its name, rule and the rule's numbers
+	 */
+	private static final class Rule {
+		final String name;
+		final int kind;
+		final int[] args;
+
+		private Rule(String name, int kind, int[] args) {
+			this.name = name;
+			this.kind = kind;
+			this.args = args;
+		}
+
+		/*
+		 * "Full House: house 3 2 25"
+		 */
+		static Rule parse(String where, String text, int dice, int faces) {
+			int colon = text.lastIndexOf(':');
+			String[] words = text.substring(colon + 1).trim().split("\\s+");
+			String name = colon < 0 ? words[0] : text.substring(0, colon).trim();
+			int kind = Arrays.asList(RULE_NAMES).indexOf(words[0]);
+			if (kind < 0) {
+				throw new ErrorException(where + ": unknown rule \"" + words[0] + "\", expected one of "
+						+ String.join(", ", RULE_NAMES));
+			}
+			if (words.length != RULE_ARGS[kind] + 1) {
+				throw new ErrorException(where + ": " + words[0] + " takes " + RULE_ARGS[kind] + " numbers");
+			}
+			int[] args = new int[RULE_ARGS[kind]];
+			for (int i = 0; i < args.length; i++) {
+				try {
+					args[i] = Integer.parseInt(words[i + 1]);
+				} catch (NumberFormatException e) {
+					throw new ErrorException(where + ": \"" + words[i + 1] + "\" is not a number");
+				}
+			}
+			boolean valid;
+			switch (kind) {
+			case FACE:
+				valid = args[0] >= 1 && args[0] <= faces;
+				break;
+			case SUM_OF_KIND:
+			case KIND:
+				valid = args[0] >= 1 && args[0] <= dice;
+				break;
+			case HOUSE:
+				valid = args[0] >= 1 && args[1] >= 1 && args[0] + args[1] <= dice;
+				break;
+			case STRAIGHT:
+				valid = args[0] >= 1 && args[0] <= Math.min(dice, faces);
+				break;
+			default:
+				valid = true;
+			}
+			if (!valid) {
+				throw new ErrorException(where + ": " + text.trim() + " can never score with " + dice + " dice of "
+						+ faces + " faces");
+			}
+			return new Rule(name, kind, args);
+		}
+
+		/*
+		 * The slow, obvious rules, only used while filling the table
+		 */
+		int score(int[] counts) {
+			int sum = 0;
+			int most = 0;
+			for (int f = 0; f < counts.length; f++) {
+				sum += counts[f] * (f + 1);
+				most = Math.max(most, counts[f]);
+			}
+			switch (kind) {
+			case FACE:
+				return counts[args[0] - 1] * args[0];
+			case SUM_OF_KIND:
+				return most >= args[0] ? sum : 0;
+			case KIND:
+				return most >= args[0] ? args[1] : 0;
+			case HOUSE:
+				return hasHouse(counts) ? args[2] : 0;
+			case STRAIGHT:
+				return longestRun(counts) >= args[0] ? args[1] : 0;
+			default:
+				return sum;
+			}
+		}
+
+		/*
+		 * args[0] dice of one face and args[1] of a different one
+		 */
+		private boolean hasHouse(int[] counts) {
+			for (int i = 0; i < counts.length; i++) {
+				for (int j = 0; j < counts.length; j++) {
+					if (i != j && counts[i] >= args[0] && counts[j] >= args[1]) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private static int longestRun(int[] counts) {
+			int best = 0;
+			int run = 0;
+			for (int count : counts) {
+				run = count > 0 ? run + 1 : 0;
+				best = Math.max(best, run);
+			}
+			return best;
+		}
+	}
+
+}
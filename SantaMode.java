@@ -6,11 +6,27 @@ public class SantaMode extends GCanvas {
 	/*Constants */
 	private static final int OVAL_SIZE = 55;
 	private static final int OVAL_OFFSET = 10;
+	private static final int OVAL_Y = 400;
 	private static final int OFFSET_BETWEEN_SANTA_SCORES = 65;
 	/*Instance variables*/
-	private GOval ball1, ball2;
-	private GLabel label1, label2,santaTimeLabel;
-	
+	// everything is made once and added to the canvas hidden; after that
+	// only text, color, place and visibility change, so a long session
+	// does not keep adding objects to the canvas
+	private GOval ball1 = makeBall(), ball2 = makeBall();
+	private GLabel label1 = makeLabel("Arial-Bold-20", Color.BLACK), label2 = makeLabel("Arial-Bold-20", Color.BLACK);
+	private GLabel santaTimeLabel = makeLabel("Arial-Bold-24", Color.CYAN);
+	private GLabel santaAddedLabel = makeLabel("Arial-Bold-12", Color.BLACK);
+	private GLabel[] scoreLabels = new GLabel[YahtzeeConstants2.MAX_PLAYERS];
+	private GCanvas attachedTo = null;
+
+	public SantaMode() {
+		santaTimeLabel.setLabel("NOW IT'S SANTA TIME");
+		santaAddedLabel.setLabel("SANTA added");
+		for (int i = 0; i < scoreLabels.length; i++) {
+			scoreLabels[i] = makeLabel("Arial-Bold-12", Color.BLACK);
+		}
+	}
+
 	/*
 	 * Adds two balls on canvas. At first, they are #1 and #2 balls.
 	 * Then they will become WIN and LOSE balls
@@ -19,61 +35,98 @@ public class SantaMode extends GCanvas {
 		drawBall(targetCanvas, targetCanvas.getWidth()/2 - OVAL_SIZE - OVAL_OFFSET, "1");
 		drawBall(targetCanvas, targetCanvas.getWidth()/2 + OVAL_OFFSET, "2");
 	}
-	
+
 	public void drawBall(GCanvas targetCanvas, int x, String str){
-		GOval oval = new GOval(OVAL_SIZE,OVAL_SIZE);
-		oval.setFilled(true);
+		attach(targetCanvas);
+		GOval oval = str.equals("1") ? ball1 : ball2; // first or second ball
+		GLabel label = str.equals("1") ? label1 : label2;
 		oval.setColor(Color.WHITE);
-		targetCanvas.add(oval,x, 400);	
-		if(str.equals("1")){ // assign oval and label to first ball
-			ball1=oval;
-			label1=makeLabel(targetCanvas, "1", x);
-		} else { // assign oval and label to second ball
-			ball2=oval;
-			label2=makeLabel(targetCanvas, "2", x);;
-		}
+		oval.setLocation(x, OVAL_Y);
+		show(oval);
+		placeLabel(label, str, x);
 	}
-	
+
 	/*
-	 * It removes objects that were created during SANTA mode
+	 * It hides objects that were shown during SANTA mode
 	 * except santaTimeLabel, because SANTA mode is not over yet
 	 * (it makes everything ready for another iteration)
 	 */
 	public void clearExtraObjects(GCanvas targetCanvas){
-		targetCanvas.remove(ball1);
-		targetCanvas.remove(ball2);
-		targetCanvas.remove(label1);
-		targetCanvas.remove(label2);
+		ball1.setVisible(false);
+		ball2.setVisible(false);
+		label1.setVisible(false);
+		label2.setVisible(false);
 	}
-	
+
 	/*
 	 * At the end, it displays scores that were received
 	 * by SANTA. They will appear bellow Total points, which
 	 * already have SANTA scores added
 	 */
 	public void displaySantaPoints(GCanvas targetCanva, int nPlayers, int[] santaPoints){
-		GLabel category = new GLabel("SANTA added");
+		attach(targetCanva);
 		int x = 283; // it is for scores
 		int xForLabel = 110;
 		int y = 300;
-		category.setFont("Arial-Bold-12");
-		category.setColor(Color.BLACK);
-		targetCanva.add(category,xForLabel, y);
-		for(int i=0; i<nPlayers; i++){
-			GLabel score = new GLabel(String.valueOf(santaPoints[i]));
-			score.setFont("Arial-Bold-12");
-			score.setColor(Color.BLACK);
-			targetCanva.add(score,x+OFFSET_BETWEEN_SANTA_SCORES*i, y);
+		santaAddedLabel.setLocation(xForLabel, y);
+		show(santaAddedLabel);
+		for(int i=0; i<scoreLabels.length; i++){
+			if (i < nPlayers) {
+				scoreLabels[i].setLabel(String.valueOf(santaPoints[i]));
+				scoreLabels[i].setLocation(x+OFFSET_BETWEEN_SANTA_SCORES*i, y);
+				show(scoreLabels[i]);
+			} else {
+				scoreLabels[i].setVisible(false); // an earlier game may have had more players
+			}
 		}
 	}
-	
-	private GLabel makeLabel(GCanvas targetCanvas, String str, double x){
-		GLabel label = new GLabel(str);
-		label.setFont("Arial-Bold-20");
-		targetCanvas.add(label,x+(OVAL_SIZE-label.getWidth())/2, 400 + (OVAL_SIZE+label.getAscent())/2);
+
+	private static GOval makeBall() {
+		GOval oval = new GOval(OVAL_SIZE,OVAL_SIZE);
+		oval.setFilled(true);
+		oval.setVisible(false);
+		return oval;
+	}
+
+	private static GLabel makeLabel(String font, Color color){
+		GLabel label = new GLabel("");
+		label.setFont(font);
+		label.setColor(color);
+		label.setVisible(false);
 		return label;
 	}
-	
+
+	/*
+	 * Writes str on the ball at x, centered
+	 */
+	private void placeLabel(GLabel label, String str, double x){
+		label.setLabel(str);
+		label.setLocation(x+(OVAL_SIZE-label.getWidth())/2, OVAL_Y + (OVAL_SIZE+label.getAscent())/2);
+		show(label);
+	}
+
+	/*
+	 * Adds every object once, hidden, the first time a canvas is used
+	 */
+	private void attach(GCanvas targetCanvas) {
+		if (attachedTo == targetCanvas) {
+			return;
+		}
+		GObject[] objects = { ball1, ball2, label1, label2, santaTimeLabel, santaAddedLabel };
+		for (GObject object : objects) {
+			targetCanvas.add(object);
+		}
+		for (GLabel score : scoreLabels) {
+			targetCanvas.add(score);
+		}
+		attachedTo = targetCanvas;
+	}
+
+	private void show(GObject object) {
+		object.setVisible(true);
+		object.sendToFront(); // above whatever was added since
+	}
+
 	/*
 	 * This method ensures correct ball is colored green
 	 * and incorrect ball is painted red
@@ -85,34 +138,30 @@ public class SantaMode extends GCanvas {
 			paint(targetCanvas,Color.RED, Color.GREEN, "LOSE", "WIN");
 		}
 	}
-	
+
 	private void paint(GCanvas targetCanvas, Color color1, Color color2, String str1, String str2){
 		ball1.setColor(color1);
-		targetCanvas.remove(label1); // removes "1", which was written on ball
-		label1=makeLabel(targetCanvas, str1 , ball1.getX());
-		ball2.setColor(color2); 
-		targetCanvas.remove(label2); // removes "2", which was written on ball
-		label2=makeLabel(targetCanvas, str2 , ball2.getX());
+		placeLabel(label1, str1 , ball1.getX()); // "1", which was written on ball, becomes str1
+		ball2.setColor(color2);
+		placeLabel(label2, str2 , ball2.getX());
 	}
-	
+
 	/*
-	 * adds santaTimeLabel in order to tell players that
+	 * shows santaTimeLabel in order to tell players that
 	 * IT IS SANTA TIME
 	 */
 	public void addWinterLabel(GCanvas targetCanvas) {
-		GLabel label = new GLabel("NOW IT'S SANTA TIME");
-		label.setFont("Arial-Bold-24");
-		label.setColor(Color.CYAN);
-		targetCanvas.add(label,(targetCanvas.getWidth()-label.getWidth())/2, 350);
-		santaTimeLabel = label;
+		attach(targetCanvas);
+		santaTimeLabel.setLocation((targetCanvas.getWidth()-santaTimeLabel.getWidth())/2, 350);
+		show(santaTimeLabel);
 	}
-	
+
 	/*
 	 * Once SANTA mode is over, santaTimeLabel will
-	 * be removed, too.
+	 * be hidden, too.
 	 */
 	public void removeSantaTimeLabel(GCanvas targetCanva){
-		targetCanva.remove(santaTimeLabel);
+		santaTimeLabel.setVisible(false);
 	}
 
 }
@@ -0,0 +1,67 @@
+/*
+ * File: SceneQueue.java
+ * ---------------------
+ * Changes to the canvas, posted from any thread (game loop, animation
+ * clock) and applied on the event-dispatch thread. Everything posted
+ * before the EDT gets to it is applied as one batch followed by a
+ * single repaint. Posting never blocks and takes no lock.
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+public class SceneQueue {
+
+	private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+	private final Runnable repaint;
+
+	/**
+	 * repaint is run on the EDT after each batch
+	 */
+	public SceneQueue(Runnable repaint) {
+		this.repaint = repaint;
+	}
+
+	/**
+	 * Queues a change. The first post after a batch schedules the next
+	 * batch on the EDT; later posts just join it.
+	 */
+	public void post(Runnable command) {
+		commands.add(command);
+		if (flushScheduled.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(this::flush);
+		}
+	}
+
+	/**
+	 * Number of changes waiting for the EDT
+	 */
+	public int pending() {
+		return commands.size();
+	}
+
+	/*
+	 * Runs on the EDT. Changes posted while the batch runs (by the batch
+	 * itself or by other threads) are applied in this batch too.
+	 */
+	private void flush() {
+		flushScheduled.set(false);
+		int applied = 0;
+		Runnable command;
+		while ((command = commands.poll()) != null) {
+			try {
+				command.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace(); // one broken change must not stop the rest
+			}
+			applied++;
+		}
+		if (applied > 0) {
+			repaint.run();
+		}
+	}
+
+}
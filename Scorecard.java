@@ -0,0 +1,142 @@
+/*
+ * File: Scorecard.java
+ * --------------------
+ * Every player's categories and scores packed into three longs. The
+ * first long holds the used categories as a 13-bit mask (slot order,
+ * see YahtzeeScorer.slotOf), whether the free BONUS is gone, and the
+ * upper and lower section sums, which are kept up to date as categories
+ * are scored, so totals never rescan the row. The other two longs hold
+ * the 13 category scores a byte each.
+ *
+ * Copying a scorecard is one array clone, which is what simulation and
+ * search want.
+ */
+
+import acm.util.ErrorException;
+
+public final class Scorecard implements YahtzeeConstants2 {
+
+/** Highest score one category can hold */
+	public static final int MAX_CATEGORY_SCORE = 0xff;
+
+	private static final int WORDS_PER_PLAYER = 3;
+
+	/* layout of a player's first word */
+	private static final int BONUS_SHIFT = N_SCORING_CATEGORIES;
+	private static final int UPPER_SHIFT = 16;
+	private static final int LOWER_SHIFT = 32;
+	private static final long SUM_MASK = 0xffff;
+	private static final int SLOTS_PER_WORD = 8;
+
+	private final long[] words;
+
+	/**
+	 * An empty scorecard for nPlayers players
+	 */
+	public Scorecard(int nPlayers) {
+		words = new long[nPlayers * WORDS_PER_PLAYER];
+	}
+
+	private Scorecard(long[] words) {
+		this.words = words;
+	}
+
+	/**
+	 * An independent copy
+	 */
+	public Scorecard copy() {
+		return new Scorecard(words.clone());
+	}
+
+	public int getPlayers() {
+		return words.length / WORDS_PER_PLAYER;
+	}
+
+	/**
+	 * Used categories of player (from 0) as a 13-bit slot mask
+	 */
+	public int usedMask(int player) {
+		return (int) words[player * WORDS_PER_PLAYER] & ((1 << N_SCORING_CATEGORIES) - 1);
+	}
+
+	public boolean isUsed(int player, int category) {
+		return (usedMask(player) & (1 << YahtzeeScorer.slotOf(category))) != 0;
+	}
+
+	/**
+	 * Marks category used with the given score and adds it to the
+	 * player's section sum
+	 */
+	public void record(int player, int category, int score) {
+		if (!YahtzeeScorer.isScoringCategory(category) || isUsed(player, category)) {
+			throw new ErrorException("Illegal category " + category);
+		}
+		if (score < 0 || score > MAX_CATEGORY_SCORE) {
+			throw new ErrorException("Category score out of range: " + score);
+		}
+		int slot = YahtzeeScorer.slotOf(category);
+		int base = player * WORDS_PER_PLAYER;
+		int shift = category <= SIXES ? UPPER_SHIFT : LOWER_SHIFT;
+		words[base] += (1L << slot) + ((long) score << shift);
+		words[base + 1 + slot / SLOTS_PER_WORD] |= (long) score << (8 * (slot % SLOTS_PER_WORD));
+	}
+
+	/**
+	 * Score of category, 0 while it is unused
+	 */
+	public int score(int player, int category) {
+		int slot = YahtzeeScorer.slotOf(category);
+		long word = words[player * WORDS_PER_PLAYER + 1 + slot / SLOTS_PER_WORD];
+		return (int) (word >>> (8 * (slot % SLOTS_PER_WORD))) & 0xff;
+	}
+
+	/** Sum of ONES to SIXES */
+	public int upper(int player) {
+		return (int) ((words[player * WORDS_PER_PLAYER] >>> UPPER_SHIFT) & SUM_MASK);
+	}
+
+	/** Sum of THREE_OF_A_KIND to CHANCE */
+	public int lower(int player) {
+		return (int) ((words[player * WORDS_PER_PLAYER] >>> LOWER_SHIFT) & SUM_MASK);
+	}
+
+	/** Sum of every scored category, without the upper bonus */
+	public int total(int player) {
+		return upper(player) + lower(player);
+	}
+
+	/** UPPER_BONUS_POINTS once the upper sum reaches the threshold, else 0 */
+	public int upperBonus(int player) {
+		return upper(player) >= UPPER_BONUS_THRESHOLD ? UPPER_BONUS_POINTS : 0;
+	}
+
+	/** True once the player's free BONUS has been applied */
+	public boolean isBonusUsed(int player) {
+		return (words[player * WORDS_PER_PLAYER] & (1L << BONUS_SHIFT)) != 0;
+	}
+
+	public void markBonusUsed(int player) {
+		words[player * WORDS_PER_PLAYER] |= 1L << BONUS_SHIFT;
+	}
+
+	/**
+	 * Puts the packed words into buffer as they are, three longs per player
+	 */
+	public void writeTo(java.nio.ByteBuffer buffer) {
+		for (long word : words) {
+			buffer.putLong(word);
+		}
+	}
+
+	/**
+	 * Reads a scorecard for nPlayers players that writeTo put into buffer
+	 */
+	public static Scorecard readFrom(java.nio.ByteBuffer buffer, int nPlayers) {
+		long[] words = new long[nPlayers * WORDS_PER_PLAYER];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = buffer.getLong();
+		}
+		return new Scorecard(words);
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * File: SimulationReport.java
+ * ---------------------------
+ * Final score distribution of simulated games, plus how many points
+ * came from the free BONUS, caught surprises and SANTA. Each worker
+ * fills its own report and reports are merged at the end.
+ */
+
+public class SimulationReport implements YahtzeeConstants2 {
+
+	/* lowest possible total: nothing scored and SANTA takes the most */
+	private static final int MIN_SCORE = -SANTA_MAX_POINTS;
+	private static final int MAX_SCORE = 2048;
+
+	private final long[] histogram = new long[MAX_SCORE - MIN_SCORE + 1];
+	private long games;
+	private long sum;
+	private double sumOfSquares;
+	private int min = Integer.MAX_VALUE;
+	private int max = Integer.MIN_VALUE;
+	private long bonusPoints;
+	private long surprisePoints;
+	private long santaPoints;
+	private long upperBonuses;
+	private long elapsedNanos;
+
+	/**
+	 * Records one finished game. total already includes the extras.
+	 */
+	public void add(int total, int bonusGain, int surpriseGain, int santaGain, boolean upperBonus) {
+		games++;
+		sum += total;
+		sumOfSquares += (double) total * total;
+		min = Math.min(min, total);
+		max = Math.max(max, total);
+		histogram[Math.min(MAX_SCORE, Math.max(MIN_SCORE, total)) - MIN_SCORE]++;
+		bonusPoints += bonusGain;
+		surprisePoints += surpriseGain;
+		santaPoints += santaGain;
+		if (upperBonus) {
+			upperBonuses++;
+		}
+	}
+
+	/**
+	 * Adds everything recorded in other to this report
+	 */
+	public void merge(SimulationReport other) {
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] += other.histogram[i];
+		}
+		games += other.games;
+		sum += other.sum;
+		sumOfSquares += other.sumOfSquares;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		bonusPoints += other.bonusPoints;
+		surprisePoints += other.surprisePoints;
+		santaPoints += other.santaPoints;
+		upperBonuses += other.upperBonuses;
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public int getMin() {
+		return min;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	public double mean() {
+		return games == 0 ? 0 : (double) sum / games;
+	}
+
+	public double standardDeviation() {
+		if (games == 0) {
+			return 0;
+		}
+		double mean = mean();
+		return Math.sqrt(Math.max(0, sumOfSquares / games - mean * mean));
+	}
+
+	/**
+	 * Smallest total that at least fraction (0..1) of games did not exceed
+	 */
+	public int percentile(double fraction) {
+		long needed = (long) Math.ceil(fraction * games);
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= needed && seen > 0) {
+				return i + MIN_SCORE;
+			}
+		}
+		return max;
+	}
+
+	/** Number of games that ended with exactly total points */
+	public long gamesWithTotal(int total) {
+		return histogram[Math.min(MAX_SCORE, Math.max(MIN_SCORE, total)) - MIN_SCORE];
+	}
+
+	public double meanBonusPoints() {
+		return games == 0 ? 0 : (double) bonusPoints / games;
+	}
+
+	public double meanSurprisePoints() {
+		return games == 0 ? 0 : (double) surprisePoints / games;
+	}
+
+	public double meanSantaPoints() {
+		return games == 0 ? 0 : (double) santaPoints / games;
+	}
+
+	public double upperBonusRate() {
+		return games == 0 ? 0 : (double) upperBonuses / games;
+	}
+
+	public double gamesPerSecond() {
+		return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d games, %.0f games/s, mean %.2f sd %.2f, p5 %d p50 %d p95 %d, min %d max %d, "
+				+ "upper bonus %.1f%%, BONUS %+.2f, surprise %+.2f, SANTA %+.2f",
+				games, gamesPerSecond(), mean(), standardDeviation(), percentile(0.05), percentile(0.5),
+				percentile(0.95), min, max, 100 * upperBonusRate(), meanBonusPoints(), meanSurprisePoints(),
+				meanSantaPoints());
+	}
+
+}
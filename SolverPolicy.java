@@ -0,0 +1,29 @@
+/*
+ * File: SolverPolicy.java
+ * -----------------------
+ * Plays the rerolls and categories that YahtzeeSolver says maximize
+ * the expected final score. One instance per thread, because it keeps
+ * its own scratch arrays.
+ */
+
+public class SolverPolicy implements GamePolicy, YahtzeeConstants2 {
+
+	private final YahtzeeSolver solver;
+	private final YahtzeeSolver.Scratch scratch = new YahtzeeSolver.Scratch();
+
+	public SolverPolicy(YahtzeeSolver solver) {
+		this.solver = solver;
+	}
+
+	@Override
+	public int chooseReroll(int[] dice, int rerollsLeft, int usedMask, int upper) {
+		int keep = solver.bestKeep(YahtzeeScorer.encode(dice), rerollsLeft, usedMask, upper, scratch);
+		return DiceTransitions.rerollMaskFor(dice, keep);
+	}
+
+	@Override
+	public int chooseCategory(int[] dice, int usedMask, int upper) {
+		return solver.bestCategory(YahtzeeScorer.encode(dice), usedMask, upper);
+	}
+
+}
@@ -0,0 +1,293 @@
+/*
+ * File: SoundPlayer.java
+ * ----------------------
+ * Plays the game's sounds. Each .au file is decoded once into 16-bit
+ * stereo PCM and kept in memory, up to a byte limit (least recently
+ * played clips are dropped first). All sounds are mixed on one thread
+ * into one output line that stays open for the whole game, so playing
+ * a sound never touches the disk and overlapping sounds share the line.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import acm.util.ErrorException;
+
+public class SoundPlayer {
+
+/** Format every clip is converted to and the line is opened with */
+	public static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+/** Default limit for decoded sound data kept in memory */
+	public static final long DEFAULT_CACHE_BYTES = 8L << 20;
+
+	/* frames mixed and written per pass, about 12 ms */
+	private static final int BLOCK_FRAMES = 512;
+	private static final int CHANNELS = 2;
+
+	private final long cacheLimitBytes;
+	private long cachedBytes = 0;
+	/* name -> interleaved stereo samples, in least recently played order */
+	private final LinkedHashMap<String, short[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final BlockingQueue<Voice> requests = new LinkedBlockingQueue<>();
+	private Thread mixerThread;
+	private volatile boolean running = false;
+
+	public SoundPlayer() {
+		this(DEFAULT_CACHE_BYTES);
+	}
+
+	public SoundPlayer(long cacheLimitBytes) {
+		this.cacheLimitBytes = cacheLimitBytes;
+	}
+
+	/**
+	 * Opens the output line and starts the mixing thread. Without a sound
+	 * device the player stays silent instead of failing.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		mixerThread = new Thread(this::mixLoop, "SoundPlayer");
+		mixerThread.setDaemon(true);
+		mixerThread.start();
+	}
+
+	/**
+	 * Stops the mixing thread and closes the line
+	 */
+	public synchronized void close() {
+		running = false;
+		if (mixerThread != null) {
+			mixerThread.interrupt();
+			mixerThread = null;
+		}
+	}
+
+	/**
+	 * Decodes the named sound into the cache if it is not there yet
+	 */
+	public void load(String name) {
+		clip(name);
+	}
+
+	/**
+	 * Queues the named sound to be mixed in with whatever is playing
+	 */
+	public void play(String name) {
+		if (running) {
+			requests.offer(new Voice(clip(name)));
+		}
+	}
+
+	/**
+	 * Returns how many bytes of decoded sound are cached
+	 */
+	public synchronized long getCachedBytes() {
+		return cachedBytes;
+	}
+
+	/*
+	 * Returns decoded samples of the named sound, decoding and
+	 * caching them first if needed. Decoding happens outside the lock,
+	 * so a slow file does not block plays of cached clips.
+	 */
+	private short[] clip(String name) {
+		synchronized (this) {
+			short[] samples = cache.get(name);
+			if (samples != null) {
+				return samples;
+			}
+		}
+		short[] samples = decode(name);
+		synchronized (this) {
+			short[] other = cache.get(name);
+			if (other != null) {
+				return other;
+			}
+			cache.put(name, samples);
+			cachedBytes += samples.length * 2L;
+			trimCache(name);
+		}
+		return samples;
+	}
+
+	/*
+	 * Drops least recently played clips until the cache fits, but never
+	 * the clip that was just added
+	 */
+	private void trimCache(String keep) {
+		Iterator<java.util.Map.Entry<String, short[]>> iterator = cache.entrySet().iterator();
+		while (cachedBytes > cacheLimitBytes && iterator.hasNext()) {
+			java.util.Map.Entry<String, short[]> entry = iterator.next();
+			if (!entry.getKey().equals(keep)) {
+				cachedBytes -= entry.getValue().length * 2L;
+				iterator.remove();
+			}
+		}
+	}
+
+	/*
+	 * Reads the file (from disk or, like MediaTools, from the classpath)
+	 * and converts it to FORMAT
+	 */
+	static short[] decode(String name) {
+		GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+		event.begin();
+		try (AudioInputStream source = AudioSystem.getAudioInputStream(open(name))) {
+			AudioFormat from = source.getFormat();
+			AudioFormat pcm = new AudioFormat(from.getSampleRate(), 16, from.getChannels(), true, false);
+			try (AudioInputStream stream = AudioSystem.getAudioInputStream(pcm, source)) {
+				byte[] bytes = readAll(stream);
+				return toStereo(bytes, from.getChannels(), from.getSampleRate());
+			}
+		} catch (IOException | UnsupportedAudioFileException e) {
+			throw new ErrorException("Cannot load sound " + name + ": " + e.getMessage());
+		} finally {
+			event.name = name;
+			event.kind = "sound";
+			event.commit();
+		}
+	}
+
+	private static InputStream open(String name) throws IOException {
+		File file = new File(name);
+		if (file.exists()) {
+			return new BufferedInputStream(new java.io.FileInputStream(file));
+		}
+		InputStream in = SoundPlayer.class.getResourceAsStream("/" + name);
+		if (in == null) {
+			throw new IOException("not found");
+		}
+		return new BufferedInputStream(in);
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		byte[] buffer = new byte[64 * 1024];
+		int n;
+		while ((n = in.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/*
+	 * Little-endian 16-bit samples with any channel count and rate to
+	 * interleaved stereo at FORMAT's rate (linear interpolation)
+	 */
+	private static short[] toStereo(byte[] bytes, int channels, float rate) {
+		int frames = bytes.length / (2 * channels);
+		double step = rate / FORMAT.getSampleRate();
+		int outFrames = (int) (frames / step);
+		short[] out = new short[outFrames * CHANNELS];
+		for (int f = 0; f < outFrames; f++) {
+			double position = f * step;
+			int i = (int) position;
+			double fraction = position - i;
+			int j = Math.min(i + 1, frames - 1);
+			for (int c = 0; c < CHANNELS; c++) {
+				int channel = Math.min(c, channels - 1);
+				double a = sample(bytes, i * channels + channel);
+				double b = sample(bytes, j * channels + channel);
+				out[f * CHANNELS + c] = (short) Math.round(a + (b - a) * fraction);
+			}
+		}
+		return out;
+	}
+
+	private static short sample(byte[] bytes, int index) {
+		return (short) ((bytes[2 * index] & 0xff) | (bytes[2 * index + 1] << 8));
+	}
+
+	/*
+	 * The mixing thread. Sleeps while nothing is playing; otherwise sums
+	 * all active voices one block at a time and writes the block, which
+	 * blocks on the line and so keeps the loop in step with playback.
+	 */
+	private void mixLoop() {
+		SourceDataLine line = openLine();
+		ArrayList<Voice> voices = new ArrayList<>();
+		int[] mix = new int[BLOCK_FRAMES * CHANNELS];
+		byte[] out = new byte[mix.length * 2];
+		try {
+			while (running) {
+				if (voices.isEmpty()) {
+					voices.add(requests.take());
+				}
+				requests.drainTo(voices);
+				java.util.Arrays.fill(mix, 0);
+				Iterator<Voice> iterator = voices.iterator();
+				while (iterator.hasNext()) {
+					if (!iterator.next().mixInto(mix)) {
+						iterator.remove();
+					}
+				}
+				for (int i = 0; i < mix.length; i++) {
+					int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+					out[2 * i] = (byte) s;
+					out[2 * i + 1] = (byte) (s >> 8);
+				}
+				if (line != null) {
+					line.write(out, 0, out.length);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (line != null) {
+				line.close();
+			}
+		}
+	}
+
+	private static SourceDataLine openLine() {
+		try {
+			SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, BLOCK_FRAMES * CHANNELS * 2 * 8);
+			line.start();
+			return line;
+		} catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+			return null; // no sound device, play silently
+		}
+	}
+
+	/*
+	 * One playing instance of a clip
+	 */
+	private static class Voice {
+		private final short[] samples;
+		private int position = 0;
+
+		Voice(short[] samples) {
+			this.samples = samples;
+		}
+
+		/* adds the next block to mix, returns false once the clip is over */
+		boolean mixInto(int[] mix) {
+			int n = Math.min(mix.length, samples.length - position);
+			for (int i = 0; i < n; i++) {
+				mix[i] += samples[position + i];
+			}
+			position += n;
+			return position < samples.length;
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * File: TableEngine.java
+ * ----------------------
+ * Hosts many YahtzeeGame tables in one process, each on its own thread.
+ * On Java 21 and later these are virtual threads, so a table that is
+ * waiting for a player costs a few kilobytes of heap and no OS thread;
+ * on older runtimes a cached pool of ordinary threads is used instead.
+ * This suits GameIO players that block, like bots in tests; GameServer
+ * steps its tables from the selector threads and needs no engine.
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TableEngine implements AutoCloseable {
+
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final AtomicInteger openTables = new AtomicInteger();
+	private final AtomicLong finishedTables = new AtomicLong();
+
+	public TableEngine() {
+		ExecutorService virtual = newVirtualThreadExecutor();
+		virtualThreads = virtual != null;
+		executor = virtualThreads ? virtual : Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "Table");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor() through reflection, so
+	 * this also compiles and runs before Java 21; null if it does not exist
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Starts a game for nPlayers players at a new table. The future
+	 * completes with the final totals, or with the exception that ended
+	 * the game.
+	 */
+	public CompletableFuture<int[]> open(int nPlayers, GameIO io, long seed) {
+		YahtzeeGame game = new YahtzeeGame(nPlayers, seed);
+		openTables.incrementAndGet();
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return game.play(io);
+			} finally {
+				openTables.decrementAndGet();
+				finishedTables.incrementAndGet();
+			}
+		}, executor);
+	}
+
+	/** True if tables run on virtual threads */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/** Tables whose game is still going */
+	public int getOpenTables() {
+		return openTables.get();
+	}
+
+	/** Tables whose game has ended, normally or not */
+	public long getFinishedTables() {
+		return finishedTables.get();
+	}
+
+	/**
+	 * Interrupts every running game and stops the engine
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * File: TableLoadTest.java
+ * ------------------------
+ * Opens many tables on a TableEngine, all waiting for their players,
+ * and measures how much heap an idle table costs. Then lets every
+ * player roll, one "Roll Dice" click at a time, and measures how many
+ * turns per second the engine gets through. Players are GreedyPolicy
+ * bots, so the time goes into the engine and its thread handoffs.
+ *
+ *   java TableLoadTest [tables] [players]
+ *
+ * Run it on Java 21+ to use virtual threads; older runtimes fall back
+ * to one platform thread per table.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TableLoadTest implements YahtzeeConstants2 {
+
+	private static final AtomicInteger waiting = new AtomicInteger();
+	private static final AtomicLong turns = new AtomicLong();
+
+	public static void main(String[] args) throws InterruptedException {
+		int tables = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		try (TableEngine engine = new TableEngine()) {
+			System.out.println((engine.usesVirtualThreads() ? "virtual" : "platform") + " threads, " + tables
+					+ " tables of " + players);
+			long heapBefore = usedHeap();
+			List<BotTable> bots = new ArrayList<>();
+			List<CompletableFuture<int[]>> games = new ArrayList<>();
+			for (int t = 0; t < tables; t++) {
+				BotTable bot = new BotTable();
+				bots.add(bot);
+				games.add(engine.open(players, bot, t));
+			}
+			while (waiting.get() < tables) { // every table is at its first awaitRoll
+				Thread.sleep(10);
+			}
+			long perTable = (usedHeap() - heapBefore) / tables;
+			int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+			System.out.printf("idle: %d bytes of heap per table, %d live platform threads%n", perTable, threads);
+
+			long start = System.nanoTime();
+			int turnsPerGame = TOTAL_ROUNDS * players;
+			for (int turn = 0; turn < turnsPerGame; turn++) {
+				for (BotTable bot : bots) {
+					bot.clicks.release(); // one "Roll Dice" click
+				}
+			}
+			CompletableFuture.allOf(games.toArray(new CompletableFuture<?>[0])).join();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long mean = 0;
+			for (CompletableFuture<int[]> game : games) {
+				mean += game.join()[0];
+			}
+			System.out.printf("%d turns in %.2f s: %.0f turns/s, mean total %.1f%n", turns.get(), seconds,
+					turns.get() / seconds, (double) mean / tables);
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/*
+	 * A table of bots that wait for a click before every turn
+	 */
+	private static class BotTable implements GameIO {
+		final Semaphore clicks = new Semaphore(0);
+		private final GreedyPolicy policy = new GreedyPolicy();
+		private boolean counted = false;
+
+		@Override
+		public void awaitRoll(int player) {
+			if (!counted) {
+				counted = true;
+				waiting.incrementAndGet();
+			}
+			try {
+				clicks.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("table closed");
+			}
+		}
+
+		@Override
+		public int chooseReroll(int player, int[] dice, int rerollsLeft) {
+			return policy.chooseReroll(dice, rerollsLeft, 0, 0);
+		}
+
+		@Override
+		public int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise) {
+			return policy.chooseCategory(dice, card.usedMask(player), card.upper(player));
+		}
+
+		@Override
+		public boolean useBonus(int player, int category, int[] dice) {
+			return policy.useBonus(category, YahtzeeScorer.score(dice, category), 0);
+		}
+
+		@Override
+		public boolean catchSurprise(int player) {
+			return true;
+		}
+
+		@Override
+		public int santaChoice(int player, int reward) {
+			return 1;
+		}
+
+		@Override
+		public void santaResult(int player, int points) {
+		}
+
+		@Override
+		public void scored(int player, int category, int score, Scorecard card) {
+			turns.incrementAndGet();
+		}
+
+		@Override
+		public void gameOver(Scorecard card, int[] totals) {
+		}
+	}
+
+}
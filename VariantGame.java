@@ -0,0 +1,229 @@
+/*
+ * File: VariantGame.java
+ * ----------------------
+ * Plays a RuleVariant without a window: up to the variant's table size
+ * of players, one round per category, the variant's rolls per turn and
+ * its upper bonus. The classic extras (BONUS, the surprise and SANTA)
+ * are not part of a variant. Every seat is a bot that uses nothing but
+ * the variant's tables: at the start of a turn it values every roll by
+ * its best open category, less what chasing that category alone for a
+ * turn is worth, and looks ahead through the rerolls with the keep and
+ * outcome tables, as BotPolicy does for the classic game.
+ *
+ *   java VariantGame [file] [players] [games]
+ *
+ * plays games of the variant in file (classic without one), with the
+ * variant's table size unless players says otherwise, and prints how
+ * fast they went and what the seats scored.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+
+import acm.util.ErrorException;
+
+public class VariantGame {
+
+	private final RuleVariant variant;
+	private final int nPlayers;
+	private final DiceSource random;
+	private final Bot bot;
+	private final int[] dice;
+	private final int allDice;
+	/* player * categories + category -> score */
+	private final int[] scores;
+	private final int[] usedMask;
+	private final int[] upper;
+
+	/**
+	 * A new game of variant for nPlayers bots that draws all its dice
+	 * from random
+	 */
+	public VariantGame(RuleVariant variant, int nPlayers, DiceSource random) {
+		if (nPlayers < 1 || nPlayers > variant.getMaxPlayers()) {
+			throw new ErrorException(variant.getName() + " seats 1 to " + variant.getMaxPlayers() + " players");
+		}
+		this.variant = variant;
+		this.nPlayers = nPlayers;
+		this.random = random;
+		this.bot = new Bot(variant);
+		this.dice = new int[variant.getDice()];
+		this.allDice = (1 << variant.getDice()) - 1;
+		this.scores = new int[nPlayers * variant.getCategories()];
+		this.usedMask = new int[nPlayers];
+		this.upper = new int[nPlayers];
+	}
+
+	/**
+	 * Plays a whole game from an empty scorecard and returns every
+	 * player's final total; a game can be played again, the bots'
+	 * tables are built only once
+	 */
+	public int[] play() {
+		Arrays.fill(scores, 0);
+		Arrays.fill(usedMask, 0);
+		Arrays.fill(upper, 0);
+		for (int round = 0; round < variant.getCategories(); round++) {
+			for (int player = 0; player < nPlayers; player++) {
+				playTurn(player);
+			}
+		}
+		int[] totals = new int[nPlayers];
+		for (int player = 0; player < nPlayers; player++) {
+			for (int category = 0; category < variant.getCategories(); category++) {
+				totals[player] += scores[player * variant.getCategories() + category];
+			}
+			totals[player] += variant.upperBonus(upper[player]);
+		}
+		return totals;
+	}
+
+	private void playTurn(int player) {
+		bot.startTurn(usedMask[player]);
+		roll(allDice);
+		for (int rerollsLeft = variant.getRollsPerTurn() - 1; rerollsLeft > 0; rerollsLeft--) {
+			int mask = bot.chooseReroll(dice, rerollsLeft);
+			if (mask == 0) {
+				break;
+			}
+			roll(mask);
+		}
+		int category = bot.chooseCategory(dice, usedMask[player]);
+		int score = variant.score(dice, category);
+		scores[player * variant.getCategories() + category] = score;
+		usedMask[player] |= 1 << category;
+		if (variant.isUpper(category)) {
+			upper[player] += score;
+		}
+	}
+
+	private void roll(int mask) {
+		for (int n = 0; n < dice.length; n++) {
+			if ((mask & (1 << n)) != 0) {
+				dice[n] = 1 + random.nextInt(variant.getFaces());
+			}
+		}
+	}
+
+	/** Score of player in category, 0 while it is open */
+	public int getScore(int player, int category) {
+		return scores[player * variant.getCategories() + category];
+	}
+
+	/*
+	 * The seat every player gets. rollValue[j] is what a roll is worth
+	 * with j rerolls left and keepValue[j] what rerolling from a keep is
+	 * worth then; both are rebuilt for the open categories each turn.
+	 */
+	private static final class Bot {
+		final RuleVariant variant;
+		final double[] baseline;
+		final double[][] rollValue;
+		final double[][] keepValue;
+
+		Bot(RuleVariant variant) {
+			this.variant = variant;
+			baseline = new double[variant.getCategories()];
+			for (int category = 0; category < baseline.length; category++) {
+				baseline[category] = variant.chase(category);
+			}
+			rollValue = new double[variant.getRollsPerTurn()][variant.getRolls()];
+			keepValue = new double[variant.getRollsPerTurn()][variant.getKeeps()];
+		}
+
+		void startTurn(int usedMask) {
+			for (int roll = 0; roll < variant.getRolls(); roll++) {
+				double best = Double.NEGATIVE_INFINITY;
+				for (int category = 0; category < baseline.length; category++) {
+					if ((usedMask & (1 << category)) == 0) {
+						best = Math.max(best, variant.scoreOfIndex(roll, category) - baseline[category]);
+					}
+				}
+				rollValue[0][roll] = best;
+			}
+			for (int j = 1; j < rollValue.length; j++) {
+				for (int keep = 0; keep < variant.getKeeps(); keep++) {
+					keepValue[j][keep] = variant.expected(keep, rollValue[j - 1]);
+				}
+				if (j == rollValue.length - 1) {
+					break; // the first roll of a turn is never held
+				}
+				for (int roll = 0; roll < variant.getRolls(); roll++) {
+					rollValue[j][roll] = keepValue[j][bestKeep(roll, j)];
+				}
+			}
+		}
+
+		/*
+		 * Rerolls the dice the best keep does not hold, none if that
+		 * keep is every die
+		 */
+		int chooseReroll(int[] dice, int rerollsLeft) {
+			int keep = bestKeep(variant.indexOf(dice), rerollsLeft);
+			if (keep == variant.keepOf(dice, 0)) {
+				return 0;
+			}
+			int[] held = new int[variant.getFaces() + 1];
+			for (int face = 1; face <= variant.getFaces(); face++) {
+				held[face] = variant.keptCount(keep, face);
+			}
+			int mask = 0;
+			for (int n = 0; n < dice.length; n++) {
+				if (held[dice[n]] > 0) {
+					held[dice[n]]--;
+				} else {
+					mask |= 1 << n;
+				}
+			}
+			return mask;
+		}
+
+		private int bestKeep(int roll, int rerollsLeft) {
+			double[] values = keepValue[rerollsLeft];
+			int best = variant.rollKeep(variant.rollKeepStart(roll));
+			for (int i = variant.rollKeepStart(roll) + 1; i < variant.rollKeepEnd(roll); i++) {
+				int keep = variant.rollKeep(i);
+				if (values[keep] > values[best]) {
+					best = keep;
+				}
+			}
+			return best;
+		}
+
+		int chooseCategory(int[] dice, int usedMask) {
+			int roll = variant.indexOf(dice);
+			int best = -1;
+			for (int category = 0; category < baseline.length; category++) {
+				if ((usedMask & (1 << category)) == 0 && (best < 0 || variant.scoreOfIndex(roll, category)
+						- baseline[category] > variant.scoreOfIndex(roll, best) - baseline[best])) {
+					best = category;
+				}
+			}
+			return best;
+		}
+	}
+
+	public static void main(String[] args) {
+		RuleVariant variant = args.length > 0 ? RuleVariant.load(new File(args[0])) : RuleVariant.classic();
+		int players = args.length > 1 ? Integer.parseInt(args[1]) : variant.getMaxPlayers();
+		int games = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		VariantGame game = new VariantGame(variant, players, DiceSource.seeded(42));
+		int[] all = new int[games * players];
+		long start = System.nanoTime();
+		for (int g = 0; g < games; g++) {
+			System.arraycopy(game.play(), 0, all, g * players, players);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long turns = (long) games * players * variant.getCategories();
+		Arrays.sort(all);
+		long sum = 0;
+		for (int total : all) {
+			sum += total;
+		}
+		System.out.printf("%s: %d games of %d players in %.2f s, %.0f turns/s%n", variant.getName(), games, players,
+				seconds, turns / seconds);
+		System.out.printf("mean total %.1f, p5 %d p50 %d p95 %d, max %d%n", sum / (double) all.length,
+				all[all.length / 20], all[all.length / 2], all[all.length - 1 - all.length / 20], all[all.length - 1]);
+	}
+
+}
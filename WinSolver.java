@@ -0,0 +1,609 @@
+/*
+ * File: WinSolver.java
+ * --------------------
+ * Win-maximizing play for the end of a two-player game. YahtzeeSolver
+ * maximizes expected points, but near the end what counts is beating
+ * the other player, and SANTA and the one-shot BONUS make the two
+ * goals differ most there.
+ *
+ * The solver covers the final round exactly. The first player (A) and
+ * then the second (B) each have one category left, and each final turn
+ * may bring a surprise (SURPRISE_PROBABILITY of SURPRISE_POINTS more,
+ * counted as caught). Then comes SANTA: A sees the offered reward and
+ * decides whether to gamble, then B sees its own reward and how A's
+ * gamble went. A state of the round is the pair of player states plus
+ * A's lead. A player state is the open category, the upper subtotal (if
+ * the upper bonus can still change) and whether BONUS is unused. The
+ * win chance counts a tie as half a win.
+ *
+ * Earlier rounds are out of reach. With two categories left per player
+ * there are about 6000 player states, so the joint table would hold
+ * 36 million pairs times a few hundred leads. That also leaves BONUS
+ * timing out of scope: the solver never saves BONUS for a later round,
+ * it only uses one that is still there on the final pick.
+ *
+ * The table is a memory-mapped file, filled by fork/join tasks that
+ * each solve every A state against one B state. Finished B states are
+ * recorded in the header after the rows are forced to disk, every
+ * CHECKPOINT_NANOS, so an interrupted run resumes where it stopped.
+ *
+ *   java WinSolver [games] [file]
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import acm.util.ErrorException;
+
+public final class WinSolver implements YahtzeeConstants2 {
+
+/** File the table is stored in when no other file is given */
+	public static final String DEFAULT_FILE = "yahtzee-win.bin";
+
+/** Most points one final turn can add: a doubled Yahtzee and a surprise */
+	public static final int MAX_TURN_POINTS = 2 * 50 + SURPRISE_POINTS;
+
+/** Leads this far from 0 are decided whatever the dice and SANTA do */
+	public static final int MAX_LEAD = 2 * SANTA_MAX_POINTS + MAX_TURN_POINTS + 1;
+
+	private static final int LEADS = 2 * MAX_LEAD + 1;
+	private static final int NO_UPPER = UPPER_BONUS_THRESHOLD; // the upper bonus can no longer change
+	private static final int MAGIC = 0x5957494E; // "YWIN"
+	private static final int VERSION = 2;
+	private static final int COMPLETE_OFFSET = 16;
+	private static final int DONE_OFFSET = 20;
+	private static final int DATA_OFFSET = 4096;
+	private static final long CHECKPOINT_NANOS = 10_000_000_000L;
+
+	/* player states: open slot, upper subtotal or NO_UPPER, BONUS unused */
+	private static final int[] STATE_SLOT;
+	private static final int[] STATE_UPPER;
+	private static final boolean[] STATE_BONUS;
+	private static final int[][][] STATE_INDEX = new int[N_SCORING_CATEGORIES][2][UPPER_BONUS_THRESHOLD + 1];
+
+/** The number of player states with one category left */
+	public static final int N_PLAYER_STATES;
+
+	/* A's win chance after both final turns, by A's lead, before SANTA */
+	private static final float[] SANTA_ROW = new float[LEADS];
+
+	static {
+		List<int[]> states = new ArrayList<>();
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			for (int bonus = 0; bonus < 2; bonus++) {
+				int lowest = NO_UPPER;
+				if (slot < SIXES) {
+					lowest = Math.max(0,
+							UPPER_BONUS_THRESHOLD - N_DICE * (slot + 1) * (bonus + 1) - SURPRISE_POINTS);
+				}
+				for (int upper = lowest; upper <= NO_UPPER; upper++) {
+					STATE_INDEX[slot][bonus][upper] = states.size();
+					states.add(new int[] { slot, upper, bonus });
+				}
+				for (int upper = 0; upper < lowest; upper++) { // too low to reach the bonus any more
+					STATE_INDEX[slot][bonus][upper] = STATE_INDEX[slot][bonus][NO_UPPER];
+				}
+			}
+		}
+		N_PLAYER_STATES = states.size();
+		STATE_SLOT = new int[N_PLAYER_STATES];
+		STATE_UPPER = new int[N_PLAYER_STATES];
+		STATE_BONUS = new boolean[N_PLAYER_STATES];
+		for (int s = 0; s < N_PLAYER_STATES; s++) {
+			STATE_SLOT[s] = states.get(s)[0];
+			STATE_UPPER[s] = states.get(s)[1];
+			STATE_BONUS[s] = states.get(s)[2] == 1;
+		}
+		for (int lead = -MAX_LEAD; lead <= MAX_LEAD; lead++) {
+			SANTA_ROW[lead + MAX_LEAD] = (float) beforeFirstSanta(lead);
+		}
+	}
+
+	/* win chances, indexed by (A state, B state, A's lead) */
+	private final FloatBuffer table;
+
+	/* A's win chance after A's final turn, by B state, built when first asked */
+	private final float[][] afterFirstTurn = new float[N_PLAYER_STATES][];
+
+	private WinSolver(FloatBuffer table) {
+		this.table = table;
+	}
+
+	/**
+	 * Maps the table in file, computing whatever part of it is missing
+	 * first (all of it for a new file)
+	 */
+	public static WinSolver load(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			long size = DATA_OFFSET + (long) N_PLAYER_STATES * N_PLAYER_STATES * LEADS * 4;
+			boolean fresh = channel.size() == 0;
+			if (!fresh && !isTable(channel, size)) { // checked before mapping, which would grow the file
+				throw new IOException("Not a win table: " + file);
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			if (fresh) {
+				mapped.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, N_PLAYER_STATES).putInt(12, MAX_LEAD);
+				mapped.force();
+			}
+			mapped.position(DATA_OFFSET);
+			WinSolver solver = new WinSolver(mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+			if (mapped.getInt(COMPLETE_OFFSET) == 0) {
+				new Progress(mapped).run(solver);
+			}
+			return solver;
+		}
+	}
+
+	/*
+	 * True if channel is size bytes long and starts with this table's
+	 * header, read without mapping anything
+	 */
+	private static boolean isTable(FileChannel channel, long size) throws IOException {
+		if (channel.size() != size) {
+			return false;
+		}
+		ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				return false;
+			}
+		}
+		return header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(8) == N_PLAYER_STATES
+				&& header.getInt(12) == MAX_LEAD;
+	}
+
+	/*
+	 * Solves (or resumes) the table, then plays two-player bot games in
+	 * which one seat switches to win-maximizing play for its final turn
+	 * and SANTA, against the same dice without it
+	 */
+	public static void main(String[] args) throws IOException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		File file = new File(args.length > 1 ? args[1] : DEFAULT_FILE);
+		long start = System.nanoTime();
+		WinSolver solver = load(file);
+		System.out.printf("Table ready in %.1f s: %d player states, %d leads, %d MB%n", (System.nanoTime() - start) / 1e9,
+				N_PLAYER_STATES, LEADS, file.length() >> 20);
+		for (int reward : new int[] { 5, 20, 40 }) {
+			System.out.println("SANTA offering " + reward + ": first player gambles at leads " + santaLeads(reward, true)
+					+ ", second at leads " + santaLeads(reward, false));
+		}
+		for (int seat = 0; seat < 2; seat++) {
+			double plain = 0;
+			double finishing = 0;
+			for (int g = 0; g < games; g++) {
+				plain += wins(new YahtzeeGame(2, g).play(new FinishingIO(null, seat, g)), seat);
+				finishing += wins(new YahtzeeGame(2, g).play(new FinishingIO(solver, seat, g)), seat);
+			}
+			System.out.printf("Player %d wins %.2f%% of %d games as a bot, %.2f%% finishing to win%n", seat + 1,
+					100 * plain / games, games, 100 * finishing / games);
+		}
+	}
+
+	private static double wins(int[] totals, int seat) {
+		return totals[seat] > totals[1 - seat] ? 1 : totals[seat] == totals[1 - seat] ? 0.5 : 0;
+	}
+
+	private static String santaLeads(int reward, boolean first) {
+		StringBuilder ranges = new StringBuilder();
+		int from = Integer.MIN_VALUE;
+		for (int lead = -MAX_LEAD; lead <= MAX_LEAD + 1; lead++) {
+			boolean accept = lead <= MAX_LEAD && acceptSanta(lead, reward, first);
+			if (accept && from == Integer.MIN_VALUE) {
+				from = lead;
+			} else if (!accept && from != Integer.MIN_VALUE) {
+				ranges.append(ranges.length() == 0 ? "" : ", ").append(from).append("..").append(lead - 1);
+				from = Integer.MIN_VALUE;
+			}
+		}
+		return ranges.length() == 0 ? "none" : ranges.toString();
+	}
+
+	/**
+	 * Chance that the first player wins from the start of the final
+	 * round of a two-player game, both players with one category left
+	 */
+	public double winProbability(Scorecard card) {
+		return table.get(index(playerState(card, 0), playerState(card, 1), lead(card, 0)));
+	}
+
+	/**
+	 * Reroll mask (bit n rerolls die n) that gives player the best chance
+	 * to win during their final turn of a two-player game
+	 */
+	public int chooseReroll(Scorecard card, int player, int[] dice, int rerollsLeft) {
+		float[] next = player == 0 ? afterFirstTurn(playerState(card, 1)) : flip(SANTA_ROW);
+		Scratch scratch = new Scratch(1);
+		keepValues(playerState(card, player), next, lead(card, player), rerollsLeft, scratch);
+		int roll = YahtzeeScorer.indexOf(YahtzeeScorer.encode(dice));
+		int best = DiceTransitions.keepOf(dice, 0); // keeping everything is stopping
+		for (int i = DiceTransitions.rollKeepStart(roll); i < DiceTransitions.rollKeepEnd(roll); i++) {
+			int keep = DiceTransitions.rollKeep(i);
+			if (scratch.keeps[keep] > scratch.keeps[best]) {
+				best = keep;
+			}
+		}
+		return DiceTransitions.rerollMaskFor(dice, best);
+	}
+
+	/**
+	 * Whether to gamble for reward at SANTA with this lead over the other
+	 * player. The first player decides before the second; the second's
+	 * lead already includes how the first one's gamble went.
+	 */
+	public static boolean acceptSanta(int lead, int reward, boolean first) {
+		if (first) {
+			return (afterSecondSanta(lead + reward) + afterSecondSanta(lead - reward)) / 2 > afterSecondSanta(lead);
+		}
+		return (outcome(lead + reward) + outcome(lead - reward)) / 2 > outcome(lead);
+	}
+
+	/*
+	 * Win chance of a player leading by lead once nobody gambles any more
+	 */
+	private static double outcome(int lead) {
+		return lead > 0 ? 1 : lead == 0 ? 0.5 : 0;
+	}
+
+	/*
+	 * First player's chance before the second player's reward is drawn.
+	 * The second player gambles, against the first, when the reward
+	 * makes that worth it; a fair ball wins or loses the reward.
+	 */
+	private static double afterSecondSanta(int lead) {
+		double sum = 0;
+		for (int reward = 1; reward <= SANTA_MAX_POINTS; reward++) {
+			sum += Math.min(outcome(lead), (outcome(lead + reward) + outcome(lead - reward)) / 2);
+		}
+		return sum / SANTA_MAX_POINTS;
+	}
+
+	/*
+	 * First player's chance before their own reward is drawn
+	 */
+	private static double beforeFirstSanta(int lead) {
+		double sum = 0;
+		for (int reward = 1; reward <= SANTA_MAX_POINTS; reward++) {
+			sum += Math.max(afterSecondSanta(lead),
+					(afterSecondSanta(lead + reward) + afterSecondSanta(lead - reward)) / 2);
+		}
+		return sum / SANTA_MAX_POINTS;
+	}
+
+	private static int index(int stateA, int stateB, int lead) {
+		return (stateA * N_PLAYER_STATES + stateB) * LEADS + clamp(lead);
+	}
+
+	private static int clamp(int lead) {
+		return Math.max(-MAX_LEAD, Math.min(MAX_LEAD, lead)) + MAX_LEAD;
+	}
+
+	/*
+	 * Player's state in a two-player card where they have one category left
+	 */
+	private static int playerState(Scorecard card, int player) {
+		int open = ~card.usedMask(player) & ((1 << N_SCORING_CATEGORIES) - 1);
+		if (card.getPlayers() != 2 || Integer.bitCount(open) != 1) {
+			throw new ErrorException("Not the final round of a two-player game");
+		}
+		int upper = Math.min(card.upper(player), NO_UPPER);
+		return STATE_INDEX[Integer.numberOfTrailingZeros(open)][card.isBonusUsed(player) ? 0 : 1][upper];
+	}
+
+	private static int lead(Scorecard card, int player) {
+		int other = 1 - player;
+		return card.total(player) + card.upperBonus(player) - card.total(other) - card.upperBonus(other);
+	}
+
+	/*
+	 * Points each roll adds in state's final turn, with extra points from
+	 * a surprise. BONUS is always used when it is still there: more
+	 * points never lower the chance to win.
+	 */
+	private static int[] points(int state, int extra) {
+		int category = YahtzeeScorer.categoryOf(STATE_SLOT[state]);
+		int upper = STATE_UPPER[state];
+		int[] points = new int[YahtzeeScorer.N_ROLLS];
+		for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+			int score = YahtzeeScorer.scoreOfIndex(roll, category) * (STATE_BONUS[state] ? 2 : 1) + extra;
+			if (upper < NO_UPPER && upper + score >= UPPER_BONUS_THRESHOLD) {
+				score += UPPER_BONUS_POINTS;
+			}
+			points[roll] = score;
+		}
+		return points;
+	}
+
+	/*
+	 * The other player's view of a row: their lead is minus ours and
+	 * their chance is one minus ours
+	 */
+	private static float[] flip(float[] row) {
+		float[] flipped = new float[LEADS];
+		for (int i = 0; i < LEADS; i++) {
+			flipped[i] = 1 - row[LEADS - 1 - i];
+		}
+		return flipped;
+	}
+
+	/*
+	 * A's chance after A's final turn with A leading by each lead: B
+	 * plays its final turn against A, then SANTA
+	 */
+	private synchronized float[] afterFirstTurn(int stateB) {
+		if (afterFirstTurn[stateB] == null) {
+			afterFirstTurn[stateB] = flip(turnValues(stateB, flip(SANTA_ROW), new Scratch(LEADS)));
+		}
+		return afterFirstTurn[stateB];
+	}
+
+	/*
+	 * Mover's chance at every lead before a whole final turn in state,
+	 * given their chance next[lead] once the points are added
+	 */
+	private static float[] turnValues(int state, float[] next, Scratch scratch) {
+		keepValues(state, next, -MAX_LEAD, 2, scratch);
+		bestKeepPerRoll(scratch);
+		float[] row = new float[LEADS];
+		int keep = DiceTransitions.EMPTY_KEEP;
+		for (int i = DiceTransitions.outcomeStart(keep); i < DiceTransitions.outcomeEnd(keep); i++) {
+			float p = (float) DiceTransitions.outcomeProbability(i);
+			int from = DiceTransitions.outcomeRoll(i) * LEADS;
+			for (int j = 0; j < LEADS; j++) {
+				row[j] += p * scratch.rolls[from + j];
+			}
+		}
+		return row;
+	}
+
+	/*
+	 * Fills scratch.keeps with the mover's chance after holding each keep
+	 * and rolling again, for scratch.count leads from firstLead, with
+	 * rerollsLeft (1 or 2) rolls still allowed. The surprise comes after
+	 * the dice whatever they show, so it only changes the final values.
+	 */
+	private static void keepValues(int state, float[] next, int firstLead, int rerollsLeft, Scratch scratch) {
+		int count = scratch.count;
+		float[] rolls = scratch.rolls;
+		float[] keeps = scratch.keeps;
+		int[] plain = points(state, 0);
+		int[] caught = points(state, SURPRISE_POINTS);
+		float surprise = (float) SURPRISE_PROBABILITY;
+		for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+			for (int j = 0; j < count; j++) {
+				rolls[roll * count + j] = (1 - surprise) * next[clamp(firstLead + j + plain[roll])]
+						+ surprise * next[clamp(firstLead + j + caught[roll])];
+			}
+		}
+		for (int level = 0; level < rerollsLeft; level++) {
+			if (level > 0) {
+				bestKeepPerRoll(scratch);
+			}
+			java.util.Arrays.fill(keeps, 0);
+			for (int keep = 0; keep < DiceTransitions.N_KEEPS; keep++) {
+				int to = keep * count;
+				for (int i = DiceTransitions.outcomeStart(keep); i < DiceTransitions.outcomeEnd(keep); i++) {
+					float p = (float) DiceTransitions.outcomeProbability(i);
+					int from = DiceTransitions.outcomeRoll(i) * count;
+					for (int j = 0; j < count; j++) {
+						keeps[to + j] += p * rolls[from + j];
+					}
+				}
+			}
+		}
+	}
+
+	private static void bestKeepPerRoll(Scratch scratch) {
+		int count = scratch.count;
+		float[] rolls = scratch.rolls;
+		float[] keeps = scratch.keeps;
+		for (int roll = 0; roll < YahtzeeScorer.N_ROLLS; roll++) {
+			int to = roll * count;
+			java.util.Arrays.fill(rolls, to, to + count, 0);
+			for (int i = DiceTransitions.rollKeepStart(roll); i < DiceTransitions.rollKeepEnd(roll); i++) {
+				int from = DiceTransitions.rollKeep(i) * count;
+				for (int j = 0; j < count; j++) {
+					float value = keeps[from + j];
+					if (value > rolls[to + j]) {
+						rolls[to + j] = value;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Work arrays for count leads at once
+	 */
+	private static final class Scratch {
+		final int count;
+		final float[] rolls;
+		final float[] keeps;
+
+		Scratch(int count) {
+			this.count = count;
+			this.rolls = new float[YahtzeeScorer.N_ROLLS * count];
+			this.keeps = new float[DiceTransitions.N_KEEPS * count];
+		}
+	}
+
+	/*
+	 * Solves every A state against one B state per task and keeps the
+	 * header's record of finished B states
+	 */
+	private static final class Progress {
+		private final MappedByteBuffer mapped;
+		private final List<Integer> unsaved = new ArrayList<>();
+		private long lastCheckpoint = System.nanoTime();
+		private int done = 0;
+
+		Progress(MappedByteBuffer mapped) {
+			this.mapped = mapped;
+		}
+
+		void run(WinSolver solver) {
+			List<Integer> todo = new ArrayList<>();
+			for (int stateB = 0; stateB < N_PLAYER_STATES; stateB++) {
+				if ((mapped.get(DONE_OFFSET + stateB / 8) & (1 << (stateB % 8))) == 0) {
+					todo.add(stateB);
+				} else {
+					done++;
+				}
+			}
+			if (done > 0) {
+				System.out.printf("Resuming: %d of %d states already solved%n", done, N_PLAYER_STATES);
+			}
+			int[] states = todo.stream().mapToInt(Integer::intValue).toArray();
+			ForkJoinPool.commonPool().invoke(new StatesTask(solver, this, states, 0, states.length));
+			checkpoint();
+			mapped.putInt(COMPLETE_OFFSET, 1);
+			mapped.force();
+		}
+
+		synchronized void finished(int stateB) {
+			unsaved.add(stateB);
+			if (System.nanoTime() - lastCheckpoint >= CHECKPOINT_NANOS) {
+				checkpoint();
+			}
+		}
+
+		/*
+		 * Rows reach the disk before the states that own them are marked
+		 */
+		private synchronized void checkpoint() {
+			mapped.force();
+			for (int stateB : unsaved) {
+				int at = DONE_OFFSET + stateB / 8;
+				mapped.put(at, (byte) (mapped.get(at) | (1 << (stateB % 8))));
+			}
+			mapped.force();
+			done += unsaved.size();
+			unsaved.clear();
+			lastCheckpoint = System.nanoTime();
+			System.out.printf("Checkpoint: %d of %d states solved%n", done, N_PLAYER_STATES);
+		}
+	}
+
+	/*
+	 * Two BotPolicy players that catch every surprise, as the solver
+	 * assumes; the one in seat asks the solver during its final turn and
+	 * at SANTA (unless solver is null), with the other player's SANTA
+	 * result already in the lead
+	 */
+	private static final class FinishingIO implements GameIO {
+		private final WinSolver solver;
+		private final int seat;
+		private final PolicyIO bots;
+		private final int[] santaPoints = new int[2];
+		private Scorecard card = new Scorecard(2);
+
+		FinishingIO(WinSolver solver, int seat, long seed) {
+			this.solver = solver;
+			this.seat = seat;
+			this.bots = new PolicyIO(new GamePolicy[] { new BotPolicy(), new BotPolicy() }, 1, seed);
+		}
+
+		private boolean finalTurn(int player) {
+			return solver != null && player == seat && Integer.bitCount(card.usedMask(player)) == TOTAL_ROUNDS - 1;
+		}
+
+		@Override
+		public void awaitRoll(int player) {
+		}
+
+		@Override
+		public int chooseReroll(int player, int[] dice, int rerollsLeft) {
+			return finalTurn(player) ? solver.chooseReroll(card, player, dice, rerollsLeft)
+					: bots.chooseReroll(player, dice, rerollsLeft);
+		}
+
+		@Override
+		public int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise) {
+			return bots.chooseCategory(player, dice, card, surprise);
+		}
+
+		@Override
+		public boolean useBonus(int player, int category, int[] dice) {
+			return finalTurn(player) || bots.useBonus(player, category, dice);
+		}
+
+		@Override
+		public boolean catchSurprise(int player) {
+			return bots.catchSurprise(player);
+		}
+
+		@Override
+		public int santaChoice(int player, int reward) {
+			if (solver == null || player != seat) {
+				return bots.santaChoice(player, reward);
+			}
+			int lead = lead(card, player) + santaPoints[player] - santaPoints[1 - player];
+			return acceptSanta(lead, reward, player == 0) ? 1 : 0;
+		}
+
+		@Override
+		public void santaResult(int player, int points) {
+			santaPoints[player] = points;
+			bots.santaResult(player, points);
+		}
+
+		@Override
+		public void scored(int player, int category, int score, Scorecard card) {
+			this.card = card;
+			bots.scored(player, category, score, card);
+		}
+
+		@Override
+		public void gameOver(Scorecard card, int[] totals) {
+			bots.gameOver(card, totals);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class StatesTask extends RecursiveAction {
+		private final WinSolver solver;
+		private final Progress progress;
+		private final int[] states;
+		private final int from, to;
+
+		StatesTask(WinSolver solver, Progress progress, int[] states, int from, int to) {
+			this.solver = solver;
+			this.progress = progress;
+			this.states = states;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new StatesTask(solver, progress, states, from, middle),
+						new StatesTask(solver, progress, states, middle, to));
+				return;
+			}
+			int stateB = states[from];
+			float[] next = solver.afterFirstTurn(stateB);
+			Scratch scratch = new Scratch(LEADS);
+			FloatBuffer rows = solver.table.duplicate(); // a position of its own
+			for (int stateA = 0; stateA < N_PLAYER_STATES; stateA++) {
+				rows.position(index(stateA, stateB, -MAX_LEAD));
+				rows.put(turnValues(stateA, next, scratch));
+			}
+			progress.finished(stateB);
+		}
+	}
+
+}
@@ -34,12 +34,30 @@ public interface YahtzeeConstants2 {
 /** The size of flakes, which fall when WINTER mode is on */
 	public static final int FLAKE_SIZE = 20;
 	
+/** The most snowflakes falling at once */
+	public static final int MAX_FLAKES = 4096;
+	
 /** Delay, which makes falling objects visible for us*/
     public static final int DELAY = 20;
     
 /** Diameter of surprise, which is created randomly*/
     public static final int SURPRISE_DIAMETER = 20;
 
+/** Chance that a surprise falls during a turn */
+    public static final double SURPRISE_PROBABILITY = 0.2;
+
+/** Points added to the chosen category when surprise is caught */
+    public static final int SURPRISE_POINTS = 10;
+
+/** SANTA gives or takes between 1 and this many points */
+    public static final int SANTA_MAX_POINTS = 40;
+
+/** Upper section points needed for the upper bonus */
+	public static final int UPPER_BONUS_THRESHOLD = 63;
+
+/** Points given for the upper bonus */
+	public static final int UPPER_BONUS_POINTS = 35;
+
 /** The constants that specify categories on the scoresheet */
 	public static final int ONES = 1;
 	public static final int TWOS = 2;
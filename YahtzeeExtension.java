@@ -5,11 +5,12 @@
  * This program will eventually play the Yahtzee game.
  */
 
-import java.applet.AudioClip;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JButton;
 
@@ -25,21 +26,61 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	}
 
 	public void run() {
+		startLoadingAssets(); // loads in the background while dialogs are open
 		addMouseListeners(); // for surprise
 		addButtons();
+		GameSnapshot saved = autosave.load();
+		if (saved != null) {
+			resumeGame(saved); // no setup dialogs
+		} else {
+			setUpNewGame();
+		}
+		playGame();
+	}
+
+	private void setUpNewGame() {
 		nPlayers = dialog.readInt("Enter number of players");
 		checkNumOfPlayers();
 		playerNames = new String[nPlayers];
+		bots = new GamePolicy[nPlayers]; // null seats are played by people
 		for (int i = 1; i <= nPlayers; i++) {
 			playerNames[i - 1] = dialog.readLine("Enter name for player " + i);
+			if (dialog.readBoolean("Should the computer play for " + playerNames[i - 1] + "?")) {
+				bots[i - 1] = new BotPolicy();
+			}
 		}
+		journal = GameJournal.open(new File(GameJournal.DEFAULT_FILE)); // every move goes in here
+		journal.gameStarted(playerNames);
 		display = new YahtzeeDisplay(getGCanvas(), playerNames);
-		// initializing matrixes
-		usedCategories = new boolean[nPlayers][N_CATEGORIES];
-		freeBonusForPlayers = new boolean[nPlayers];
-		totalScores = new int[nPlayers][N_CATEGORIES];
-		initializeWinterMode();
-		playGame();
+		card = new Scorecard(nPlayers); // empty scorecard
+	}
+
+	/*
+	 * Continues a game that was cut off, from the turn after the last
+	 * category pick. The journal keeps going in the same game.
+	 */
+	private void resumeGame(GameSnapshot saved) {
+		playerNames = saved.getPlayerNames();
+		nPlayers = playerNames.length;
+		bots = new GamePolicy[nPlayers];
+		for (int p = 0; p < nPlayers; p++) {
+			if (saved.isComputer(p)) {
+				bots[p] = new BotPolicy();
+			}
+		}
+		card = saved.getScorecard();
+		firstRound = saved.getRound();
+		firstPlayerIndex = saved.getPlayerIndex();
+		journal = GameJournal.open(new File(GameJournal.DEFAULT_FILE));
+		display = new YahtzeeDisplay(getGCanvas(), playerNames);
+		for (int p = 0; p < nPlayers; p++) { // put the saved scores back on the scorecard
+			for (int c = ONES; c <= CHANCE; c++) {
+				if (YahtzeeScorer.isScoringCategory(c) && card.isUsed(p, c)) {
+					display.updateScorecard(c, p + 1, card.score(p, c));
+				}
+			}
+			display.updateScorecard(TOTAL, p + 1, card.total(p));
+		}
 	}
 
 	/*
@@ -49,6 +90,8 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 		addresetButton();
 		addwinterModeButton();
 		addFreeBonusButton();
+		addStatsButton();
+		addHintsButton();
 		addActionListeners();
 	}
 
@@ -76,18 +119,38 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 		add(button, SOUTH);
 	}
 
+	/*
+	 * Initializes the stats button, which shows or hides performance numbers
+	 */
+	private void addStatsButton() {
+		JButton button = new JButton("STATS");
+		add(button, SOUTH);
+	}
+
+	/*
+	 * Initializes the hints button, which shows or hides reroll advice
+	 */
+	private void addHintsButton() {
+		JButton button = new JButton("HINTS");
+		add(button, SOUTH);
+	}
+
 	/**
-	 * Handles actions based on button clicks (Winter,Normal mode or Bonus)
+	 * Handles actions based on button clicks (Winter,Normal mode, Bonus, Stats or Hints)
 	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
 		String command = e.getActionCommand();
 		if (command.equals("WINTER")) {
-			approvedWinter = true; // Enable winter mode
+			startWinterMode(); // Enable winter mode
 		} else if (command.equals("CLASSIC")) {
 			resetToClassicMode();
 		} else if (command.equals("BONUS")) {
 			activateFreeBonus();
+		} else if (command.equals("STATS")) {
+			statsOverlay().toggle();
+		} else if (command.equals("HINTS")) {
+			toggleHints();
 		}
 	}
 
@@ -97,48 +160,56 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	private void resetToClassicMode() {
 		setBackground(new Color(0, 150, 0)); // bring default color back
 		approvedWinter = false; // Disable winter mode
-		removeFlakes(); // clear canvas and flakes array
+		removeFlakes(); // clear snow layer
 	}
 
+	/*
+	 * Called on the event-dispatch thread, like every scene change
+	 */
 	private void removeFlakes() {
-		for (GImage flake : flakes) {
-			remove(flake);
+		if (snow != null) {
+			snow.clear();
+			snow.repaint();
 		}
-		flakes.clear();
 	}
 
 	/*
 	 * activates bonus if user has it left, if not, shows player specific
-	 * message
+	 * message. A computer player decides for itself, so the button does
+	 * nothing during its turn.
 	 */
 	private void activateFreeBonus() {
+		if (bots[playerIndex] != null) {
+			return;
+		}
 		freeBonusPressed = true;
-		if (freeBonusForPlayers[playerIndex]) { // if player had already used it
+		if (card.isBonusUsed(playerIndex)) { // if player had already used it
 			errorMessageAudio();
+			journal.bonusPressed(playerIndex, false);
 			dialog.showErrorMessage("No bonuses left for " + playerNames[playerIndex]);
 		} else {
+			journal.bonusPressed(playerIndex, true);
 			displayBonus(); // bonus applies
 		}
 	}
 
 	/*
-	 * Displays bonus label vertically
+	 * Displays bonus label vertically; pressing it again shows the
+	 * same letters
 	 */
 	private void displayBonus() {
-		String text = "BONUS";
-		for (int i = 0; i < text.length(); i++) {
-			int verticalOffset = 50;
-			char c = text.charAt(i);
-			GLabel label = new GLabel(String.valueOf(c));
-			double x = 570;
-			double y = 70;
-			label.setColor(Color.YELLOW);
-			label.setFont("Arial-Bold-24");
-			// Position each character vertically
-			label.setLocation(x, y + i * verticalOffset);
-			add(label);
-			bonusLetters.add(label); // add in arrayList
+		scene.post(() -> overlay().showBonus(true));
+	}
+
+	/*
+	 * BONUS letters and the surprise result, made once on the
+	 * event-dispatch thread the first time they are needed
+	 */
+	private OverlayLayer overlay() {
+		if (overlay == null) {
+			overlay = new OverlayLayer(getGCanvas(), clock, 1000 / DELAY);
 		}
+		return overlay;
 	}
 
 	/*
@@ -159,127 +230,424 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	}
 
 	/*
-	 * Initializing WinterMode, which will be activated by pressing WINTER
-	 * button
+	 * Performance overlay is created the first time STATS is pressed
 	 */
-	private void initializeWinterMode() {
-		// we need a separate thread for the winter mode
-		Thread winterThread = new Thread(() -> {
-			try {
-				while (isRunning) { // canvas is in run time(not closed)
-					if (approvedWinter) { // if button was pressed
-						setBackground(Color.BLUE);
-						addFlake();
-						moveFlakes();
-					}
-					Thread.sleep(DELAY); // makes flakes visible
-				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-			}
-		});
-		winterThread.start();
+	private PerformanceOverlay statsOverlay() {
+		if (stats == null) {
+			stats = new PerformanceOverlay(clock, getGCanvas(), () -> snow == null ? 0 : snow.size(),
+					assets::getLoadTimes);
+		}
+		return stats;
+	}
+
+	/*
+	 * Turns WINTER mode on. Snow is one animation on the shared clock,
+	 * so nothing runs until WINTER button (or SANTA) asks for it
+	 */
+	private void startWinterMode() {
+		approvedWinter = true;
+		scene.post(() -> setBackground(Color.BLUE));
+		clock.register(winter);
+	}
+
+	/*
+	 * One frame of snow. Once winter mode is off the animation ends and,
+	 * if nothing else moves, the clock goes idle.
+	 */
+	private boolean winterStep() {
+		if (!approvedWinter) {
+			return false;
+		}
+		addFlake();
+		moveFlakes();
+		return true;
 	}
 
 	/*
 	 * Adds a new snowflake to the canvas with a random position
 	 */
 	private void addFlake() {
-		if (rgen.nextBoolean(0.1)) { // 10% of Probability to add a snowflake
-			GImage flake = new GImage("snowFlake.png");
-			flake.setSize(FLAKE_SIZE, FLAKE_SIZE);
-			add(flake, rgen.nextInt(0, getWidth() - FLAKE_SIZE), -FLAKE_SIZE);
-			flakes.add(flake); // Add the flake to the list
+		if (effects.nextDouble() < 0.1) { // 10% of Probability to add a snowflake
+			snow().spawn(effects.nextInt(getWidth() - FLAKE_SIZE + 1), -FLAKE_SIZE, 3);
 		}
 	}
 
 	/*
-	 * Moves all snowflakes downward and removes them when they reach the bottom
+	 * All flakes are drawn by one layer at the back of the canvas. It is
+	 * created once the flake sprite is loaded and is sent to back only once.
 	 */
-	private void moveFlakes() {
-		Iterator<GImage> iterator = flakes.iterator();
-		while (iterator.hasNext()) {
-			GImage flake = iterator.next();
-			flake.sendToBack(); // Ensure the flake stays behind other objects
-			if (flake.getY() + FLAKE_SIZE > getHeight()) {
-				remove(flake); // Remove from canvas if it reaches the bottom
-				iterator.remove(); // Remove from the list
-			} else {
-				flake.move(0, 3); // Move the snowflake downward
-			}
+	private ParticleLayer snow() {
+		if (snow == null) {
+			snow = new ParticleLayer(assets.getImage("snowFlake.png"), FLAKE_SIZE, MAX_FLAKES);
+			snow.setArea(getWidth(), getHeight());
+			add(snow, 0, 0);
+			snow.sendToBack(); // flakes stay behind other objects
 		}
+		return snow;
+	}
 
+	/*
+	 * Moves all snowflakes downward and drops those that reached the
+	 * bottom. The clock repaints once for the whole frame.
+	 */
+	private void moveFlakes() {
+		ParticleLayer layer = snow();
+		layer.setArea(getWidth(), getHeight()); // SANTA mode resizes the window
+		layer.step(getHeight());
 	}
 
 	/*
-	 * Stops the winter mode(snowflake) thread
+	 * Stops every animation and the sound thread
 	 */
 	@Override
 	public void stop() {
-		isRunning = false; 
+		clock.stop();
+		sounds.close();
+		if (journal != null) {
+			journal.close();
+		}
+		autosave.close();
 	}
 
+	/*
+	 * The rules are YahtzeeGame's, the same ones the simulator, the
+	 * server and the bots play; the window only answers its questions
+	 */
 	private void playGame() {
-		for (int r = 0; r < TOTAL_ROUNDS; r++) { // every player rolls dice in every round
-			for (int player = 1; player <= nPlayers; player++) {
-				int[] dice = new int[N_DICE]; // array of dice values(5 in total)
-				playerIndex = player - 1;
-				display.printMessage(playerNames[playerIndex] + "'s turn. Click \"Roll Dice\" button to roll the dice");
-				display.waitForPlayerToClickRoll(player);
-				processOfRollingDice(dice);
+		new YahtzeeGame(card, firstRound, firstPlayerIndex, random).play(new WindowIO());
+	}
+
+	/*
+	 * The window's side of YahtzeeGame. People answer with clicks and
+	 * dialogs, computer players through their GamePolicy, and every
+	 * answer and score goes into the journal, the autosave and the
+	 * scorecard on screen. It runs on the game thread; BONUS and the
+	 * surprise are pressed and clicked on the event-dispatch thread and
+	 * read here from their volatile flags.
+	 */
+	private class WindowIO implements GameIO {
+		private GameEvents.Turn turn; // for Flight Recorder
+		private GameEvents.DiceRoll rollEvent;
+		private GameEvents.CategoryScore scoreEvent;
+		private int lastMask; // mask that rolled the dice shown next, -1 before the first roll
+		private int[] finalDice;
+		private boolean bonusApplied;
+		private boolean surpriseApplied;
+		private int santaChoice; // 1) yes 2) no, as the journal keeps it
+		private int santaBall;
+
+		@Override
+		public void awaitRoll(int player) {
+			playerIndex = player;
+			if (bots[player] == null) {
+				display.printMessage(playerNames[player] + "'s turn. Click \"Roll Dice\" button to roll the dice");
+				display.waitForPlayerToClickRoll(player + 1);
+			} else {
+				display.printMessage(playerNames[player] + " (computer) is playing");
+			}
+			turn = new GameEvents.Turn();
+			turn.begin();
+			waitForAssets();
+			bonusApplied = false;
+			surpriseApplied = false;
+			lastMask = -1;
+			startRoll();
+		}
+
+		/*
+		 * Shows the dice the last roll gave, then waits for the dice to
+		 * roll again; the computer selects its own
+		 */
+		@Override
+		public int chooseReroll(int player, int[] dice, int rerollsLeft) {
+			rolled(player, dice);
+			showHint(dice, rerollsLeft);
+			GamePolicy bot = bots[player];
+			lastMask = bot == null ? selectedDice(dice)
+					: bot.chooseReroll(dice, rerollsLeft, card.usedMask(player), card.upper(player));
+			startRoll();
+			return lastMask; // no dice selected ends rolling
+		}
+
+		/*
+		 * People pick on the scorecard while the surprise, if there is
+		 * one, falls. Computers do not chase surprises, they cannot click.
+		 */
+		@Override
+		public int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise) {
+			if (lastMask != 0) { // the last reroll has not been shown yet
+				rolled(player, dice);
+				showHint(dice, 0);
+			}
+			lastMask = 0;
+			int category;
+			GamePolicy bot = bots[player];
+			if (bot == null) {
 				display.printMessage("Select a category for this roll.");
-				randomSurprise(); // surprise generator
-				int category = display.waitForPlayerToSelectCategory();
-				category = checkCategoryValidity(category);
-				removeSurprise(); // if it was created before
+				if (surprise) {
+					dropSurprise();
+				}
+				category = checkCategoryValidity(display.waitForPlayerToSelectCategory());
 				categoryChosen = true; // player chose category
-				checkCategorySatisfaction(category, dice);
-				display.updateScorecard(category, player, score);
+				removeSurprise(); // if it was created before
+			} else {
+				category = bot.chooseCategory(dice, card.usedMask(player), card.upper(player));
 			}
+			clearHint();
+			finalDice = dice;
+			scoreEvent = new GameEvents.CategoryScore();
+			scoreEvent.begin();
+			return category;
+		}
+
+		@Override
+		public boolean useBonus(int player, int category, int[] dice) {
+			GamePolicy bot = bots[player];
+			if (bot == null) {
+				bonusApplied = freeBonusPressed;
+			} else {
+				int round = Integer.bitCount(card.usedMask(player));
+				bonusApplied = bot.useBonus(category, YahtzeeScorer.score(dice, category), round);
+				if (bonusApplied) {
+					journal.bonusPressed(player, true);
+				}
+			}
+			return bonusApplied;
+		}
+
+		@Override
+		public boolean catchSurprise(int player) {
+			surpriseApplied = caught; // dropSurprise clears it for the next one
+			return surpriseApplied;
+		}
+
+		@Override
+		public void scored(int player, int category, int score, Scorecard card) {
+			YahtzeeExtension.this.card = card; // totals are kept up to date
+			playAudio(YahtzeeScorer.score(finalDice, category));
+			int flags = (bonusApplied ? GameJournal.FLAG_BONUS : 0) | (surpriseApplied ? GameJournal.FLAG_SURPRISE : 0);
+			journal.categoryScored(player, category, score, flags);
+			if (freeBonusPressed) {
+				freeBonusPressed = false; // revert it
+				removeBonus();
+			}
+			display.updateScorecard(TOTAL, player + 1, card.total(player));
+			display.updateScorecard(category, player + 1, score);
+			saveAfterTurn(player, card);
+			scoreEvent.category = category;
+			scoreEvent.score = score;
+			scoreEvent.commit();
+			if (turn.shouldCommit()) { // only when a recording wants it
+				turn.player = playerNames[player];
+				turn.round = Integer.bitCount(card.usedMask(player));
+				turn.category = category;
+				turn.score = score;
+				turn.commit();
+			}
+		}
+
+		/*
+		 * SANTA asks people through the dialog, the first player first,
+		 * once the reward is known
+		 */
+		@Override
+		public int santaChoice(int player, int reward) {
+			if (player == 0) {
+				pause(1000); // players can look at their result
+				santaGivesPresents(); // and then SANTA mode turns on
+			}
+			pause(1000);
+			playerIndex = player;
+			GamePolicy bot = bots[player];
+			if (bot == null) {
+				santaChoice = dialog.readInt(playerNames[player] + ", SANTA offers you " + reward
+						+ " points. Do you want this gift? " + " 1) yes  2) no");
+				santaChoice = checkChoice(santaChoice, "Choose 1) yes or 2) no");
+			} else { // computer decides on its total so far
+				santaChoice = bot.acceptSanta(card.total(player) + card.upperBonus(player)) ? 1 : 2;
+			}
+			if (santaChoice == 2) {
+				tell("SANTA won't give you any present then");
+				return 0;
+			}
+			explainRules(getGCanvas(), santa, reward);
+			if (bot == null) {
+				santaBall = dialog.readInt("Choose ball: 1 or 2"); // player chooses ball
+				santaBall = checkChoice(santaBall, "Choose ball 1 or ball 2");
+			} else {
+				santaBall = 1; // either ball is a fair guess
+			}
+			return santaBall;
 		}
-		endOfGame();
-	}
 
-	private void processOfRollingDice(int[] dice) {
-		generateRandomDiceValues(dice); // first roll of dice
-		display.displayDice(dice);
-		for (int i = 0; i < 2; i++) { // player can re-roll dice for 2 times
-			display.printMessage("Select the dice you wish to re-roll and click \"Roll Again\" ");
-			rollAgain(dice);
+		@Override
+		public void santaResult(int player, int points) {
+			santaPoints[player] = points; // let's store these SANTA points
+			if (santaChoice == 1) {
+				GCanvas canvas = getGCanvas();
+				int green = points > 0 ? santaBall : switchBall(santaBall); // the winning ball
+				scene.post(() -> santa.paintBalls(canvas, green));
+				tell(points > 0 ? "Congrats!!" : "Sometimes SANTA can be CRUEL");
+				scene.post(() -> santa.clearExtraObjects(canvas)); // gets ready for another player
+			}
+			journal.santa(player, santaChoice, points);
+		}
+
+		@Override
+		public void gameOver(Scorecard card, int[] totals) {
+			YahtzeeExtension.this.card = card;
+			santamodeOff(getGCanvas(), santa);
+			endOfGame();
+		}
+
+		private void startRoll() {
+			rollEvent = new GameEvents.DiceRoll();
+			rollEvent.begin();
+		}
+
+		/*
+		 * The dice that lastMask rolled are on the table
+		 */
+		private void rolled(int player, int[] dice) {
+			boolean first = lastMask < 0;
+			journal.rolled(player, dice, first ? 0 : lastMask, first);
 			display.displayDice(dice);
+			commitRoll(rollEvent, first ? "roll" : "reroll", dice, first ? 0 : lastMask);
+		}
+
+		/*
+		 * Saves the game as it stands after this turn's category pick, on
+		 * the autosave thread. The next player's round is the number of
+		 * categories they have used.
+		 */
+		private void saveAfterTurn(int player, Scorecard card) {
+			int next = (player + 1) % nPlayers;
+			autosave.save(new GameSnapshot(playerNames, card, bots, Integer.bitCount(card.usedMask(next)), next));
 		}
 	}
 
-	private void generateRandomDiceValues(int[] dice) {
-		for (int i = 0; i < dice.length; i++) { // all 5 dice receive values
-			dice[i] = (rgen.nextInt(1, 6));
+	/*
+	 * Fills and commits a Flight Recorder roll event, but builds the
+	 * dice string only if a recording is listening
+	 */
+	private void commitRoll(GameEvents.DiceRoll event, String kind, int[] dice, int rerollMask) {
+		if (event.shouldCommit()) {
+			event.kind = kind;
+			event.dice = Arrays.toString(dice);
+			event.rerollMask = rerollMask;
+			event.commit();
 		}
 	}
 
 	/*
-	 * Only selected dice will be rolled again
+	 * Waits for the player to pick dice and returns them as a reroll mask
 	 */
-	private void rollAgain(int[] dice) {
+	private int selectedDice(int[] dice) {
+		display.printMessage("Select the dice you wish to re-roll and click \"Roll Again\" ");
 		display.waitForPlayerToSelectDice();
+		int rerollMask = 0;
 		for (int n = 0; n < dice.length; n++) {
 			if (display.isDieSelected(n)) {
-				dice[n] = rgen.nextInt(1, 6);
+				rerollMask |= 1 << n;
+			}
+		}
+		return rerollMask;
+	}
+
+	/*
+	 * Turns reroll hints on or off. Runs on the EDT, like the labels.
+	 */
+	private void toggleHints() {
+		hintsOn = !hintsOn;
+		for (int i = 0; i < hintLabels.length; i++) {
+			if (hintsOn) {
+				if (hintLabels[i] == null) {
+					hintLabels[i] = new GLabel("");
+					hintLabels[i].setFont("Monospaced-12");
+					hintLabels[i].setColor(Color.WHITE);
+				}
+				add(hintLabels[i], 5, getHeight() - 5 - HINT_LINE_HEIGHT * (hintLabels.length - 1 - i));
+			} else {
+				remove(hintLabels[i]);
+			}
+		}
+	}
+
+	/*
+	 * Advice for the dice just displayed: where to stop and the best
+	 * holds. Only for people, and only while HINTS is on. The last line
+	 * follows the player's dice selection every frame.
+	 */
+	private void showHint(int[] dice, int rerollsLeft) {
+		if (!hintsOn || bots[playerIndex] != null) {
+			return;
+		}
+		RerollAdvisor.Hint hint = RerollAdvisor.shared().advise(dice, rerollsLeft, card.usedMask(playerIndex),
+				card.upper(playerIndex));
+		String[] lines = new String[hintLabels.length];
+		Arrays.fill(lines, "");
+		lines[0] = hint.describeStop();
+		int[] holds = hint.bestHolds(lines.length - 2);
+		for (int i = 0; i < holds.length; i++) {
+			lines[1 + i] = hint.describe(holds[i]);
+		}
+		hintShown = rerollsLeft > 0 ? hint : null;
+		hintMask = 0;
+		scene.post(() -> setHintText(lines));
+		if (hintShown != null) {
+			clock.register(hintSelection);
+		}
+	}
+
+	private void clearHint() {
+		hintShown = null;
+		scene.post(() -> setHintText(new String[hintLabels.length]));
+	}
+
+	private void setHintText(String[] lines) {
+		for (int i = 0; i < lines.length; i++) {
+			if (hintLabels[i] != null) {
+				hintLabels[i].setLabel(lines[i] == null ? "" : lines[i]);
+			}
+		}
+	}
+
+	/*
+	 * One frame of the selection line: the value of the dice selected
+	 * for rerolling right now, read from the hint already computed
+	 */
+	private boolean hintSelectionStep() {
+		RerollAdvisor.Hint hint = hintShown;
+		GLabel label = hintLabels[hintLabels.length - 1];
+		if (!hintsOn || hint == null || label == null) {
+			return false;
+		}
+		int mask = 0;
+		for (int n = 0; n < N_DICE; n++) {
+			if (display.isDieSelected(n)) {
+				mask |= 1 << n;
 			}
 		}
+		if (mask != hintMask) {
+			hintMask = mask;
+			label.setLabel(mask == 0 ? "" : "selected: " + hint.describe(mask));
+		}
+		return true;
 	}
 
 	/*
-	 * This method will give player surprise with 20% percent chance.
+	 * YahtzeeGame gives player a surprise with 20% percent chance.
 	 * If players can't catch it, they will lose it. If they catch it
 	 * they get extra 10 points. If they choose category before catching,
 	 * ball will disappear, since it will be a loss of surprise, too.
 	 */
-	private void randomSurprise(){
-		if(rgen.nextBoolean(0.2)){
+	private void dropSurprise(){
+		resetBooleans();
+		scene.post(() -> { // canvas is changed on the event-dispatch thread
 			modeForSurprise();
 			createSurprise();
 			moveSurprise();
-		}
+		});
 	}
 	
 	/*
@@ -300,32 +668,42 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 		surprise.setFilled(true);
 		surprise.setColor(Color.YELLOW);
 		add(surprise, x, -SURPRISE_DIAMETER);	
+		trackSurprise(surprise);
+	}
+
+	/*
+	 * Lists the surprise where it is now in the grid clicks are tested
+	 * against; the grid keeps where it was a few frames back, too
+	 */
+	private void trackSurprise(GOval current) {
+		hits.put(current, current.getX(), current.getY(), SURPRISE_DIAMETER, SURPRISE_DIAMETER, true,
+				System.currentTimeMillis());
 	}
 	
 	/*
 	 * This method is responsible for surprise movement.
-	 * New thread is created so it does not interfere with
-	 * main game( player will be able to continue game usually
+	 * Surprise falls on the animation clock, so it does not interfere
+	 * with main game( player will be able to continue game usually
 	 * for instance, choose category and etc).
 	 */
 	private void moveSurprise() {
-		resetBooleans();
-		Thread surpriseThread = new Thread(() -> {
-			try {
-				while (surpriseThreadRun) {
-					while(!over()){ // surprise is still in game
-						surprise.move(0, 5);
-						Thread.sleep(DELAY); // makes surprise visible
-					}
-					// gets here when surprise vanished
-					setToNormal();
-					showResult();
-				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-			}
-		});
-		surpriseThread.start();
+		clock.register(this::surpriseStep);
+	}
+
+	/*
+	 * One frame of the falling surprise
+	 */
+	private boolean surpriseStep() {
+		GOval current = surprise;
+		if (!over()) { // surprise is still in game
+			current.move(0, 5);
+			trackSurprise(current);
+			return true;
+		}
+		// gets here when surprise vanished
+		setToNormal();
+		showResult();
+		return false;
 	}
 
 	/*
@@ -334,7 +712,6 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	 * time it functions usual.
 	 */
 	private void resetBooleans(){
-		surpriseThreadRun = true;
 		caught = false;
 		categoryChosen = false;
 	}
@@ -346,7 +723,8 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	 * 3) player successfully caught it
 	 */
 	private boolean over() {
-		return categoryChosen || surprise.getY()+25>getHeight() || caught;
+		GOval current = surprise; // WindowIO may remove it meanwhile
+		return current == null || categoryChosen || current.getY()+25>getHeight() || caught;
 	}
 	
 	/*
@@ -355,14 +733,16 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	private void setToNormal(){
 		removeSurprise();
 		setBackground(new Color(0, 150, 0));
-		surpriseThreadRun=false;
 	}
 	
 	private void removeSurprise(){
-		if(surprise!=null){
-			remove(surprise);
-			surprise=null;
-		}
+		scene.post(() -> {
+			if(surprise!=null){
+				remove(surprise);
+				hits.remove(surprise);
+				surprise=null;
+			}
+		});
 	}
 	
 	private void showResult() {
@@ -374,273 +754,85 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	}
 	
 	/*
-	 * This tells players whether they caught surprise or not
+	 * This tells players whether they caught surprise or not.
+	 * Label stays for a second, counted in clock frames, so
+	 * nothing sleeps.
 	 */
 	private void depictResultLabel(String str, Color color){
-		GLabel label = new GLabel(str);
-		label.setFont("Arial-Bold-24");
-		label.setColor(color);
-		add(label, 340, 315);
-		pause(1000);
-		remove(label);
+		overlay().showResult(str, color);
 	}
 	
+	/*
+	 * Only the surprise can be clicked, so the click is looked up in
+	 * its grid rather than the canvas with every flake and label on
+	 * it, and against where the surprise was when the player clicked
+	 */
 	@Override
 	public void mouseClicked(MouseEvent e){
-		GObject object = getElementAt(e.getX(), e.getY());
-		if(object==surprise && surprise != null){
+		GOval current = surprise;
+		if(current != null && !categoryChosen && hits.find(e.getX(), e.getY(), e.getWhen()) == current){
 			caught = true; // if player caught surprise on canvas
+			journal.surpriseCaught(playerIndex);
 		}
 	}
 	
 	/*
 	 * This method checks validity of chosen category. It if was previously
-	 * used, player receives specific message, if not, we remember it in boolean
-	 * array ( if already used, it is true, if not it is false(as a default))
+	 * used, or is a sum row, player receives specific message and chooses
+	 * again. The scorecard marks it used once it is scored
 	 */
 	private int checkCategoryValidity(int category) {
-		while (true) {
-			if (usedCategories[playerIndex][category]) { // if true, it was previously used
-				errorMessageAudio();
+		while (!YahtzeeScorer.isScoringCategory(category) || card.isUsed(playerIndex, category)) {
+			errorMessageAudio();
+			if (YahtzeeScorer.isScoringCategory(category)) {
 				dialog.println("This category has already been used. Choose a different one.");
-				category = display.waitForPlayerToSelectCategory();
 			} else {
-				usedCategories[playerIndex][category] = true; // note it as used
-				break;
+				dialog.println("Choose a category to score in.");
 			}
+			category = display.waitForPlayerToSelectCategory();
 		}
 		return category;
 	}
 
 	/*
-	 * This method checks if dice values satisfy chosen category. It sets score
-	 * as 0, if category is not satisfied, score will remain 0. At the end, we
-	 * of course remember score player got and display it on scoreSheet
-	 */
-	private void checkCategorySatisfaction(int category, int[] dice) {
-		score = 0; // score resets
-		switch (category) {
-		case ONES:
-			checkOneNumber(ONES, dice);
-			break;
-		case TWOS:
-			checkOneNumber(TWOS, dice);
-			break;
-		case THREES:
-			checkOneNumber(THREES, dice);
-			break;
-		case FOURS:
-			checkOneNumber(FOURS, dice);
-			break;
-		case FIVES:
-			checkOneNumber(FIVES, dice);
-			break;
-		case SIXES:
-			checkOneNumber(SIXES, dice);
-			break;
-		case THREE_OF_A_KIND:
-			checkNumOfAKind(3, dice);
-			break;
-		case FOUR_OF_A_KIND:
-			checkNumOfAKind(4, dice);
-			break;
-		case FULL_HOUSE:
-			checkFullHouse(dice);
-			break;
-		case SMALL_STRAIGHT:
-			checkStraights(4, dice, 30);
-			break;
-		case LARGE_STRAIGHT:
-			checkStraights(5, dice, 40);
-			break;
-		case YAHTZEE:
-			checkYahtzee(dice);
-			break;
-		case CHANCE:
-			getScore(dice);
-			break;
-		default:
-			throw new ErrorException("Illegal category");
-		}
-		playAudio();
-		checkForBonus();
-		checkForSurprise();
-		totalScores[playerIndex][category - 1] = score; // note it in matrix
-		display.updateScorecard(TOTAL, playerIndex + 1, upperScore(playerIndex) + lowerScore(playerIndex));
-	}
-
-	private void checkOneNumber(int categoryValue, int[] dice) {
-		for (int diceValue : dice) {
-			if (diceValue == categoryValue) {
-				score += categoryValue;
-			}
-		}
-	}
-
-	private void checkNumOfAKind(int num, int[] dice) {
-		HashMap<Integer, Integer> frequencyMap = new HashMap<>();
-		// counting frequency of dice values
-		for (int diceValue : dice) {
-			frequencyMap.put(diceValue, frequencyMap.getOrDefault(diceValue, 0) + 1);
-			if (frequencyMap.get(diceValue) >= num) {
-				getScore(dice);
-				break;
-			}
-		}
-	}
-
-	/*
-	 * stores frequencies of values of dice
-	 */
-	private void checkFullHouse(int[] dice) {
-		HashMap<Integer, Integer> frequencyMap = new HashMap<>();
-		// counting frequency of dice values
-		for (int diceValue : dice) {
-			// this line does two things : adds new if already exists or
-			// increases by one
-			frequencyMap.put(diceValue, frequencyMap.getOrDefault(diceValue, 0) + 1);
-		}
-		checkFrequencySatisfaction(frequencyMap);
-	}
-
-	/*
-	 * checks whether there are 2 and 3 frequencies among all five frequencies
-	 * or not
-	 */
-	private void checkFrequencySatisfaction(HashMap<Integer, Integer> list) {
-		boolean frequencyOfThree = false;
-		boolean frequencyOfTwo = false;
-		for (int frequency : list.values()) {
-			if (frequency == 3) {
-				frequencyOfThree = true;
-			} else if (frequency == 2) {
-				frequencyOfTwo = true;
-			}
-		}
-		if (frequencyOfThree && frequencyOfTwo) {
-			score = 25;
-		}
-	}
-
-	private void checkStraights(int straight, int[] dice, int numOfScore) {
-		if (straight == 5) {
-			if (diceHasLargeStraight(dice)) {
-				score = numOfScore;
-			}
-		} else if (straight == 4) {
-			if (diceHasSmallStraight(dice)) {
-				score = numOfScore;
-			}
-		}
-	}
-
-	private boolean diceHasLargeStraight(int[] dice) {
-		int[][] allPossibleLargeStraights = new int[4][dice.length];
-		fillWithLargeStraights(allPossibleLargeStraights);
-		for (int[] largeStraight : allPossibleLargeStraights) {
-			if (Arrays.equals(dice, largeStraight)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/*
-	 * apparently there are 4 ways you can get Large straight. Sequence matters,
-	 * but it can be reserved (1,2,3,4,5 -> 5,4,3,2,1) both valid
-	 */
-	private void fillWithLargeStraights(int[][] allPossibleLargeStraights) {
-		allPossibleLargeStraights[0] = new int[] { 1, 2, 3, 4, 5 };
-		allPossibleLargeStraights[1] = new int[] { 2, 3, 4, 5, 6 };
-		allPossibleLargeStraights[2] = new int[] { 5, 4, 3, 2, 1 };
-		allPossibleLargeStraights[3] = new int[] { 6, 5, 4, 3, 2 };
-	}
-
-	/*
-	 * we should check 4 values in 5 . So there are two ways : 1) first four
-	 * values and 2) last four values
+	 * when bonus is applied, then its letters are hidden until next time
 	 */
-	private boolean diceHasSmallStraight(int[] dice) {
-		int[][] allPossibleSmallStraights = new int[6][dice.length - 1];
-		fillWithSmallStraights(allPossibleSmallStraights);
-		for (int[] smallStraight : allPossibleSmallStraights) {
-			if (Arrays.equals(Arrays.copyOfRange(dice, 0, dice.length - 1), smallStraight) || // first 4 values
-					Arrays.equals(Arrays.copyOfRange(dice, 1, dice.length), smallStraight)) { // last 4 values
-				return true;
-			}
-		}
-		return false;
-	}
-
-	/*
-	 * apparently there are 6 ways you can get small straight. Sequence matters,
-	 * but it can be reserved (1,2,3,4 -> 4,3,2,1) both valid
-	 */
-	private void fillWithSmallStraights(int[][] allPossibleSmallStraights) {
-		allPossibleSmallStraights[0] = new int[] { 1, 2, 3, 4 };
-		allPossibleSmallStraights[1] = new int[] { 2, 3, 4, 5 };
-		allPossibleSmallStraights[2] = new int[] { 3, 4, 5, 6 };
-		allPossibleSmallStraights[3] = new int[] { 4, 3, 2, 1 };
-		allPossibleSmallStraights[4] = new int[] { 5, 4, 3, 2 };
-		allPossibleSmallStraights[5] = new int[] { 6, 5, 4, 3 };
-	}
-
-	private void checkYahtzee(int[] dice) {
-		int value = dice[0];
-		for (int n : dice) {
-			if (n != value) {
-				return;
-			}
-		}
-		score = 50;
-	}
-
-	private void getScore(int[] dice) {
-		for (int diceValue : dice) {
-			score += diceValue;
-		}
+	private void removeBonus() {
+		scene.post(() -> overlay().showBonus(false));
 	}
 	
 	/*
-	 * Checks if player pressed bonus
+	 * Opens the sound line and starts decoding every clip and image
+	 * the game uses, all in parallel
 	 */
-	private void checkForBonus() {
-		if (freeBonusPressed) {
-			if (!freeBonusForPlayers[playerIndex]) { // if player has not used it yet
-				score *= 2; // apply bonus
-				freeBonusForPlayers[playerIndex] = true; // mark it as used
-			}
-			freeBonusPressed = false; // revert it
-			removeBonus();
-		}
+	private void startLoadingAssets() {
+		sounds.start();
+		assets.addSound("correctCategory.au");
+		assets.addSound("unsatisfiedCategory.au");
+		assets.addSound("errorMessage.au");
+		assets.addSound("win.au");
+		assets.addImage("snowFlake.png", FLAKE_SIZE, FLAKE_SIZE);
+		assets.start();
+		ForkJoinPool.commonPool().execute(RerollAdvisor::shared); // hint tables, built in parallel too
 	}
 
 	/*
-	 * when bonus is applied, then it is removed from canvas and from arrayList
+	 * The first roll needs everything loaded. Usually it already is,
+	 * because loading ran while players typed their names. Each load is
+	 * a Flight Recorder AssetLoad event and is listed under STATS.
 	 */
-	private void removeBonus() {
-		for (GLabel letter : bonusLetters) {
-			remove(letter);
-		}
-		bonusLetters.clear();
-	}
-	
-	/*
-	 * If surprise fell and player caught it, we increase
-	 * players score with 10 points. So in chosen category
-	 * player will have 10-point more
-	 */
-	private void checkForSurprise(){
-		if(caught){
-			score+=10;
-			caught=false;
+	private void waitForAssets() {
+		if (!assets.isReady()) {
+			display.printMessage("Loading...");
+			assets.awaitReady();
 		}
 	}
 
 	/*
-	 * this will run audio depending on a category player chose
+	 * this will run audio depending on the score the dice got in the
+	 * category player chose, before BONUS and surprise
 	 */
-	private void playAudio() {
+	private void playAudio(int score) {
 		if (score != 0) { // if positive score was generated
 			correctCategoryAudio();
 		} else {
@@ -651,115 +843,69 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	}
 
 	private void correctCategoryAudio() {
-		AudioClip winClip = MediaTools.loadAudioClip("correctCategory.au");
-		winClip.play();
+		sounds.play("correctCategory.au");
 	}
 
 	private void unsatisfiedCategoryAudio() {
-		AudioClip winClip = MediaTools.loadAudioClip("unsatisfiedCategory.au");
-		winClip.play();
+		sounds.play("unsatisfiedCategory.au");
 	}
 
 	private void errorMessageAudio() {
-		AudioClip winClip = MediaTools.loadAudioClip("errorMessage.au");
-		winClip.play();
+		sounds.play("errorMessage.au");
 	}
 
 	private void winAudio() {
-		AudioClip winClip = MediaTools.loadAudioClip("win.au");
-		winClip.play();
-	}
-
-	/*
-	 * Counts score in first 6 categories
-	 */
-	private int upperScore(int row) {
-		int num = 0;
-		for (int c = ONES; c <= SIXES; c++) {
-			num += totalScores[row][c - 1];
-		}
-		return num;
+		sounds.play("win.au");
 	}
 
 	/*
-	 * Counts scores in remaining(below) categories
+	 * After SANTA: final sums, winners, leaderboard
 	 */
-	private int lowerScore(int row) {
-		int num = 0;
-		for (int c = THREE_OF_A_KIND; c <= CHANCE; c++) {
-			num += totalScores[row][c - 1];
-		}
-		return num;
-	}
-
 	private void endOfGame() {
 		// we might have negative scores(because of SANTA)
 		int maximumPoints = Integer.MIN_VALUE; // initialize max score
 		HashMap<String, Integer> winnersMap = new HashMap<String, Integer>();
-		pause(1000); // players can look at their result
-		santaGivesPresents(); // and then SANTA mode turns on
 		maximumPoints = checkBonuseAndUpdateScore(maximumPoints, winnersMap);
 		printWinners(maximumPoints, winnersMap);
+		recordResults();
+		journal.gameEnded();
+		autosave.discard(); // nothing left to resume
 		winAudio();
 	}
 	
 	/*
-	 * This method is all about SANTA
+	 * This method is all about SANTA: it sets the scene, and WindowIO
+	 * asks every player in turn
 	 */
 	private void santaGivesPresents() {
 		santaPoints = new int[nPlayers]; // initialize our array
 		GCanvas canvas = this.getGCanvas(); // canvas of this class
 		setSize(610, 600); // SANTA mode needs different dimensions(so canvas size changes)
-		approvedWinter = true; // what's SANTA mode without winter mode ?? :)
-		SantaMode santa = new SantaMode();
-    	santa.addWinterLabel(canvas); // tells player that SANTA mode is on
+		startWinterMode(); // what's SANTA mode without winter mode ?? :)
+    	scene.post(() -> santa.addWinterLabel(canvas)); // tells player that SANTA mode is on
     	pause(1000);
-    	santaModeOn(canvas, santa);
-    	santamodeOff(canvas, santa);
 	}
 
-	private void santaModeOn(GCanvas canvas,SantaMode santa){
-		for (int player = 1; player <= nPlayers; player++) {
-    		pause(1000);
-    		int santaScore = 0; // initialize score that will be received
-    		playerIndex = player - 1;
-			int choice = dialog.readInt(playerNames[playerIndex] + ", do you want to receive a gift from SANTA ? " + " 1) yes  2) no");
-			choice=checkChoice(choice,"Choose 1) yes or 2) no");
-			if(choice ==1){ // player wants to play SANTA mode
-				santaScore = playSantaMode(canvas, santa, santaScore);
-			} else if(choice == 2){
-				dialog.println("SANTA won't give you any present then");
-			}
-			santaPoints[playerIndex]=santaScore; // let's store these SANTA points
-    	}
-	}
-	
-	private int playSantaMode(GCanvas canvas,SantaMode santa, int santaScore){
-		int randomPoints=rgen.nextInt(1,40); // this is the point player may win
-		explainRules(canvas,santa,randomPoints);
-		int ballChoice = dialog.readInt("Choose ball: 1 or 2"); // player chooses ball
-		ballChoice=checkChoice(ballChoice, "Choose ball 1 or ball 2");
-		int winningBall = rgen.nextInt(1,2); // randomly decide which ball is winning
-		if(ballChoice==winningBall){ // if player won
-			santa.paintBalls(canvas,ballChoice); // chose is painted green, other - red
-			dialog.println("Congrats!!");
-			santaScore=randomPoints;
-		} else { // player lost
-			ballChoice = switchBall(ballChoice);
-			santa.paintBalls(canvas,ballChoice);
-			dialog.println("Sometimes SANTA can be CRUEL");
-			santaScore=-randomPoints;
-		}
-		santa.clearExtraObjects(canvas); // gets ready for another player
-		return santaScore;
-	}
-	
 	private void explainRules(GCanvas canvas, SantaMode santa, int reward){
-		dialog.println("Santa gives you chance to get extra " + reward + " points");
-		santa.addBalls(canvas);
-		dialog.println("Below There are two Balls");
-		dialog.println("One of them will give you " + reward+ " points");
-		dialog.println("BUT, REMEMBER, if you choose the wrong ball, you'll lose "+ reward + " points");
+		tell("Santa gives you chance to get extra " + reward + " points");
+		scene.post(() -> santa.addBalls(canvas));
+		if (bots[playerIndex] == null) { // the computer knows the rules
+			dialog.println("Below There are two Balls");
+			dialog.println("One of them will give you " + reward+ " points");
+			dialog.println("BUT, REMEMBER, if you choose the wrong ball, you'll lose "+ reward + " points");
+		}
+	}
+
+	/*
+	 * SANTA talks to people through the dialog and about computers in
+	 * the message line, so a computer's turn needs no clicks
+	 */
+	private void tell(String message) {
+		if (bots[playerIndex] == null) {
+			dialog.println(message);
+		} else {
+			display.printMessage(playerNames[playerIndex] + ": " + message);
+		}
 	}
 	
 	private int checkChoice(int choice, String str) {
@@ -787,9 +933,9 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	 * Returns to normal Yahtzee
 	 */
 	private void santamodeOff(GCanvas canvas,SantaMode santa){
-		santa.removeSantaTimeLabel(canvas);
+		scene.post(() -> santa.removeSantaTimeLabel(canvas));
     	setSize(600, 450);
-    	resetToClassicMode();
+    	scene.post(this::resetToClassicMode);
     	santaAddedPoints(santa, canvas);
 	}
 	
@@ -797,7 +943,32 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	 * Displays scores that were received during SANTA mode
 	 */
 	private void santaAddedPoints(SantaMode canvas, GCanvas mainCanvas) {
-		canvas.displaySantaPoints(mainCanvas, nPlayers, santaPoints);
+		scene.post(() -> canvas.displaySantaPoints(mainCanvas, nPlayers, santaPoints));
+	}
+
+	/*
+	 * Adds the game to the leaderboard, then shows the best games ever
+	 * and how each player did against everyone who played here
+	 */
+	private void recordResults() {
+		try (Leaderboard board = Leaderboard.open(new File(Leaderboard.DEFAULT_FILE))) {
+			board.record(playerNames, card, santaPoints);
+			String text = "Best games ever:";
+			int rank = 1;
+			for (Leaderboard.Entry entry : board.top(3)) {
+				text += "\n" + rank++ + ". " + entry.getName() + " " + entry.getTotal();
+			}
+			for (int p = 0; p < nPlayers; p++) {
+				int total = card.total(p) + card.upperBonus(p) + santaPoints[p];
+				Leaderboard.Entry best = board.best(playerNames[p]);
+				text += String.format("\n%s: %d beats %.0f%% of all scores, best %d in %d games", playerNames[p],
+						total, board.percentile(total), best == null ? total : best.getTotal(),
+						board.gamesPlayed(playerNames[p]));
+			}
+			dialog.println(text);
+		} catch (ErrorException e) {
+			System.err.println(e.getMessage()); // the game itself is over either way
+		}
 	}
 
 	/*
@@ -808,9 +979,9 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 		// will iterate through all players
 		for (int player = 1; player <= nPlayers; player++) {
 			playerIndex = player - 1;
-			int upperPoints = upperScore(playerIndex);
+			int upperPoints = card.upper(playerIndex);
 			display.updateScorecard(UPPER_SCORE, player, upperPoints);
-			int lowerPoints = lowerScore(playerIndex);
+			int lowerPoints = card.lower(playerIndex);
 			display.updateScorecard(LOWER_SCORE, player, lowerPoints);
 			int totalPoints = upperPoints + lowerPoints + santaPoints[playerIndex];
 			totalPoints = checkForUpperPointsBonus(upperPoints, totalPoints, player);
@@ -825,9 +996,9 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	}
 
 	private int checkForUpperPointsBonus(int upperPoints, int totalPoints, int player) {
-		if (upperPoints >= 63) { // if bonus is satisfied
-			totalPoints += 35; // player gets extra 35 points
-			display.updateScorecard(UPPER_BONUS, player, 35);
+		if (upperPoints >= UPPER_BONUS_THRESHOLD) { // if bonus is satisfied
+			totalPoints += UPPER_BONUS_POINTS; // player gets extra 35 points
+			display.updateScorecard(UPPER_BONUS, player, UPPER_BONUS_POINTS);
 		} else { // total remains same
 			display.updateScorecard(UPPER_BONUS, player, 0);
 		}
@@ -858,28 +1029,48 @@ public class YahtzeeExtension extends GraphicsProgram implements YahtzeeConstant
 	private int playerIndex; // it's (player - 1)
 	private String[] playerNames;
 	private YahtzeeDisplay display;
-	private int score = 0; // calculates points for all players
-	private boolean[][] usedCategories; // if category is false, then it's not used
-	private int[][] totalScores; // stores total scores for each player
+	private Scorecard card; // used categories, scores and running sums of all players
+	private GamePolicy[] bots; // computer players, null for people
 	private IODialog dialog = getDialog(); // player-game interaction
+	private SoundPlayer sounds = new SoundPlayer(); // decoded clips and one mixing line
+	private AssetLoader assets = new AssetLoader(sounds); // background loading at startup
+	private GameJournal journal; // append-only record of the game, see JournalReplay
+	private Autosave autosave = new Autosave(new File(Autosave.DEFAULT_FILE)); // written after every pick
+	private int firstRound = 0; // where the game starts, later than 0 for a resumed game
+	private int firstPlayerIndex = 0;
 	
 	/*Instance variables for one-time bonus*/
 	// players have one time bonus during game, let's call it freeBonus
-	private boolean[] freeBonusForPlayers; // if false, then freeBonus was not used
-	private boolean freeBonusPressed = false; // if player presses it, it will become true
-	private ArrayList<GLabel> bonusLetters = new ArrayList<>(); // stores Bonus Letters
+	// Scorecard.isBonusUsed tells if freeBonus was used
+	private volatile boolean freeBonusPressed = false; // if player presses it, it will become true
+	private OverlayLayer overlay = null; // Bonus Letters and surprise result, see overlay()
 	
 	/*Instance variables for SANTA and WInter mode*/
-	private boolean approvedWinter = false; // becomes true if WINTER mode is on
-	private boolean isRunning = true; // controls thread execution
-	private ArrayList<GImage> flakes = new ArrayList<>(); // stores flakes
+	private volatile boolean approvedWinter = false; // becomes true if WINTER mode is on
+	private SceneQueue scene = new SceneQueue(() -> getGCanvas().repaint()); // canvas changes, applied on the EDT
+	private AnimationClock clock = new AnimationClock(DELAY, scene); // drives every animation
+	private Animation winter = this::winterStep; // snow, while WINTER mode is on
+	private PerformanceOverlay stats = null; // frame time, flakes, allocation, GC
+	
+	/*Instance variables for reroll hints*/
+	private static final int HINT_LINE_HEIGHT = 14;
+	private volatile boolean hintsOn = false; // HINTS button
+	private GLabel[] hintLabels = new GLabel[5]; // stop, three best holds, current selection
+	private volatile RerollAdvisor.Hint hintShown = null; // advice for the dice on the table
+	private int hintMask = 0; // selection the last line describes
+	private Animation hintSelection = this::hintSelectionStep;
+	private ParticleLayer snow = null; // draws every flake in one pass
 	private int[] santaPoints;
+	private SantaMode santa = new SantaMode(); // balls and labels, reused by every game
 	
 	/*Instance variables for surprise*/
-	private GOval surprise=null; // surprise itself
-	private boolean surpriseThreadRun = true; // thread for surprise mode
-	private boolean caught = false; //  boolean that checks if player caught surprise
-	private boolean categoryChosen = false; // checks if player chose category before catching surprise
+	private volatile GOval surprise=null; // surprise itself
+	private volatile boolean caught = false; //  boolean that checks if player caught surprise
+	private volatile boolean categoryChosen = false; // checks if player chose category before catching surprise
+	private HitGrid<GObject> hits = new HitGrid<>(APPLICATION_WIDTH, APPLICATION_HEIGHT, 2 * SURPRISE_DIAMETER); // clickable objects, used on the event-dispatch thread
 	
-	private RandomGenerator rgen = new RandomGenerator();
+	/*Instance variables for random numbers*/
+	// dice, surprise and SANTA draw from random only, so -Dyahtzee.seed=n replays a game
+	private DiceSource random = DiceSource.seeded(Long.getLong("yahtzee.seed", System.nanoTime()));
+	private SplittableRandom effects = new SplittableRandom(); // snowflakes, never touches the game
 }
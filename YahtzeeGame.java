@@ -0,0 +1,315 @@
+/*
+ * File: YahtzeeGame.java
+ * ----------------------
+ * The rules of one table: 13 rounds of three rolls and one category
+ * each, the free BONUS, the falling surprise and SANTA at the end. The
+ * same game is played in the window (YahtzeeExtension), over the
+ * network (GameServer), by bots and by YahtzeeSimulator.
+ *
+ * The game is a state machine: getPrompt says what it waits for and
+ * answer moves it on to the next prompt. play drives it through a
+ * GameIO whose calls may block; GameServer answers prompts as frames
+ * arrive instead, so a table waiting for its player needs no thread.
+ */
+
+import acm.util.ErrorException;
+
+public class YahtzeeGame implements YahtzeeConstants2 {
+
+	/** Waits for player to start the turn; the answer is ignored */
+	public static final int AWAIT_ROLL = 1;
+
+	/** Asks which dice to roll again; the answer is the mask, 0 stops */
+	public static final int CHOOSE_REROLL = 2;
+
+	/** Asks for a category; a used or non-scoring one is asked again */
+	public static final int CHOOSE_CATEGORY = 3;
+
+	/** Asks whether the surprise was caught; answer 1 if it was */
+	public static final int CATCH_SURPRISE = 4;
+
+	/** Asks whether BONUS was pressed for the pick; answer 1 if it was */
+	public static final int USE_BONUS = 5;
+
+	/** Tells that the pick was scored; the answer is ignored */
+	public static final int SCORED = 6;
+
+	/** Asks for 0 (no gift) or the SANTA ball, 1 or 2 */
+	public static final int SANTA_CHOICE = 7;
+
+	/** Tells what player won at SANTA; the answer is ignored */
+	public static final int SANTA_RESULT = 8;
+
+	/** The game is over; nothing more is asked */
+	public static final int GAME_OVER = 9;
+
+	private static final int ALL_DICE = (1 << N_DICE) - 1;
+
+	private final int nPlayers;
+	private final Scorecard card;
+	private final int[] santaPoints;
+	private final DiceSource random;
+	private final int[] dice = new int[N_DICE];
+	private int prompt;
+	private int round;
+	private int player;
+	private int rerollsLeft;
+	private boolean surprise;
+	private boolean caught;
+	private int category;
+	private int score;
+	private int reward;
+	private int[] totals;
+
+	/**
+	 * A new game for nPlayers players; seed makes the dice reproducible
+	 */
+	public YahtzeeGame(int nPlayers, long seed) {
+		this(nPlayers, DiceSource.seeded(seed));
+	}
+
+	/**
+	 * A new game for nPlayers players that draws all its dice from random
+	 */
+	public YahtzeeGame(int nPlayers, DiceSource random) {
+		this(new Scorecard(nPlayers), 0, 0, random);
+	}
+
+	/**
+	 * Continues a game whose scorecard is card, from round and player
+	 * (both from 0), the way a GameSnapshot saved it. Round TOTAL_ROUNDS
+	 * goes straight to SANTA.
+	 */
+	public YahtzeeGame(Scorecard card, int round, int player, DiceSource random) {
+		nPlayers = card.getPlayers();
+		if (nPlayers < MIN_PLAYERS || nPlayers > MAX_PLAYERS) {
+			throw new ErrorException("Number of players must be between " + MIN_PLAYERS + " and " + MAX_PLAYERS);
+		}
+		if (round < 0 || round > TOTAL_ROUNDS || player < 0 || player >= nPlayers) {
+			throw new ErrorException("No turn " + player + " in round " + round);
+		}
+		this.card = card.copy();
+		this.santaPoints = new int[nPlayers];
+		this.random = random;
+		this.round = round;
+		this.player = player;
+		if (round < TOTAL_ROUNDS) {
+			prompt = AWAIT_ROLL;
+		} else {
+			this.player = 0;
+			offerSanta();
+		}
+	}
+
+	/**
+	 * Plays the rest of the game through io and returns every player's
+	 * final total
+	 */
+	public int[] play(GameIO io) {
+		while (prompt != GAME_OVER) {
+			answer(ask(io));
+		}
+		io.gameOver(card.copy(), totals.clone());
+		return totals.clone();
+	}
+
+	/*
+	 * Puts the current prompt to io and returns its answer
+	 */
+	private int ask(GameIO io) {
+		switch (prompt) {
+		case AWAIT_ROLL:
+			io.awaitRoll(player);
+			return 0;
+		case CHOOSE_REROLL:
+			return io.chooseReroll(player, dice.clone(), rerollsLeft);
+		case CHOOSE_CATEGORY:
+			return io.chooseCategory(player, dice.clone(), card.copy(), surprise);
+		case CATCH_SURPRISE:
+			return io.catchSurprise(player) ? 1 : 0;
+		case USE_BONUS:
+			return io.useBonus(player, category, dice.clone()) ? 1 : 0;
+		case SCORED:
+			io.scored(player, category, score, card.copy());
+			return 0;
+		case SANTA_CHOICE:
+			return io.santaChoice(player, reward);
+		default: // SANTA_RESULT
+			io.santaResult(player, santaPoints[player]);
+			return 0;
+		}
+	}
+
+	/**
+	 * Answers the current prompt and returns the next one. A turn goes
+	 * roll, up to two rerolls, pick (with a surprise falling meanwhile,
+	 * sometimes), then the surprise and BONUS are applied.
+	 */
+	public int answer(int value) {
+		switch (prompt) {
+		case AWAIT_ROLL:
+			random.roll(dice, ALL_DICE);
+			rerollsLeft = 2;
+			prompt = CHOOSE_REROLL;
+			break;
+		case CHOOSE_REROLL:
+			if (value != 0) {
+				random.roll(dice, value);
+				rerollsLeft--;
+			}
+			if (value == 0 || rerollsLeft == 0) {
+				surprise = random.nextDouble() < SURPRISE_PROBABILITY;
+				caught = false;
+				prompt = CHOOSE_CATEGORY;
+			}
+			break;
+		case CHOOSE_CATEGORY:
+			if (YahtzeeScorer.isScoringCategory(value) && !card.isUsed(player, value)) {
+				category = value;
+				score = YahtzeeScorer.score(dice, category);
+				if (surprise) {
+					prompt = CATCH_SURPRISE;
+				} else {
+					offerBonus();
+				}
+			}
+			break;
+		case CATCH_SURPRISE:
+			caught = value != 0;
+			offerBonus();
+			break;
+		case USE_BONUS:
+			if (value != 0) {
+				score *= 2;
+				card.markBonusUsed(player);
+			}
+			record();
+			break;
+		case SCORED:
+			nextTurn();
+			break;
+		case SANTA_CHOICE:
+			if (value != 0) {
+				int winningBall = 1 + random.nextInt(2);
+				santaPoints[player] = value == winningBall ? reward : -reward;
+			}
+			prompt = SANTA_RESULT;
+			break;
+		case SANTA_RESULT:
+			if (++player < nPlayers) {
+				offerSanta();
+			} else {
+				finish();
+			}
+			break;
+		default:
+			throw new ErrorException("The game is over");
+		}
+		return prompt;
+	}
+
+	private void offerBonus() {
+		if (card.isBonusUsed(player)) {
+			record();
+		} else {
+			prompt = USE_BONUS;
+		}
+	}
+
+	private void record() {
+		if (caught) {
+			score += SURPRISE_POINTS;
+		}
+		card.record(player, category, score);
+		prompt = SCORED;
+	}
+
+	private void nextTurn() {
+		if (++player == nPlayers) {
+			player = 0;
+			round++;
+		}
+		if (round < TOTAL_ROUNDS) {
+			prompt = AWAIT_ROLL;
+		} else {
+			offerSanta();
+		}
+	}
+
+	/*
+	 * SANTA offers 1..SANTA_MAX_POINTS; the picked ball wins or loses them
+	 */
+	private void offerSanta() {
+		reward = 1 + random.nextInt(SANTA_MAX_POINTS);
+		prompt = SANTA_CHOICE;
+	}
+
+	private void finish() {
+		totals = new int[nPlayers];
+		for (int p = 0; p < nPlayers; p++) {
+			totals[p] = card.total(p) + card.upperBonus(p) + santaPoints[p];
+		}
+		prompt = GAME_OVER;
+	}
+
+	/** What the game waits for, one of AWAIT_ROLL..GAME_OVER */
+	public int getPrompt() {
+		return prompt;
+	}
+
+	/** Player the current prompt is for */
+	public int getPlayer() {
+		return player;
+	}
+
+	/** Round of the current turn, from 0 */
+	public int getRound() {
+		return round;
+	}
+
+	/** A copy of the dice as they lie */
+	public int[] getDice() {
+		return dice.clone();
+	}
+
+	/** Rerolls the player has left at CHOOSE_REROLL */
+	public int getRerollsLeft() {
+		return rerollsLeft;
+	}
+
+	/** True if a surprise falls during this pick */
+	public boolean isSurprise() {
+		return surprise;
+	}
+
+	/** Category picked this turn, once it was accepted */
+	public int getCategory() {
+		return category;
+	}
+
+	/** Points the pick scores, final at SCORED */
+	public int getScore() {
+		return score;
+	}
+
+	/** Points SANTA offers at SANTA_CHOICE */
+	public int getReward() {
+		return reward;
+	}
+
+	/** A copy of the scorecard as it stands */
+	public Scorecard getScorecard() {
+		return card.copy();
+	}
+
+	/** SANTA points of player, 0 until they have played SANTA */
+	public int getSantaPoints(int player) {
+		return santaPoints[player];
+	}
+
+	/** Every player's final total, null before GAME_OVER */
+	public int[] getTotals() {
+		return totals == null ? null : totals.clone();
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * File: YahtzeeScorer.java
+ * ------------------------
+ * Table-driven scoring engine. A roll is encoded as a compact key
+ * (how many dice show each face, packed 3 bits per face), and the
+ * scores of all 13 scoring categories for every one of the 252
+ * distinct rolls are precomputed once, so scoring a roll is a single
+ * array lookup and never allocates.
+ */
+
+public final class YahtzeeScorer implements YahtzeeConstants2 {
+
+/** The number of faces on a die */
+	public static final int N_FACES = 6;
+
+/** The number of distinct rolls of five dice (order does not matter) */
+	public static final int N_ROLLS = 252;
+
+/** Bits used by one face count inside a roll key */
+	public static final int BITS_PER_FACE = 3;
+
+/** Width of one row of the score table (categories ONES..CHANCE fit in 16) */
+	private static final int ROW = 16;
+
+	private static final int KEY_SPACE = 1 << (BITS_PER_FACE * N_FACES);
+
+	/* key -> index of the roll among the 252, or -1 if key is not a full roll */
+	private static final short[] INDEX_OF_KEY = new short[KEY_SPACE];
+	/* index -> key */
+	private static final int[] KEY_OF_INDEX = new int[N_ROLLS];
+	/* index * ROW + category -> score */
+	private static final int[] SCORES = new int[N_ROLLS * ROW];
+
+	static {
+		java.util.Arrays.fill(INDEX_OF_KEY, (short) -1);
+		int[] counts = new int[N_FACES];
+		fillRolls(counts, 0, N_DICE, new int[] { 0 });
+	}
+
+	private YahtzeeScorer() {
+	}
+
+	/*
+	 * Enumerates every way to spread the dice over the faces
+	 * and fills the tables for each of them
+	 */
+	private static void fillRolls(int[] counts, int face, int diceLeft, int[] next) {
+		if (face == N_FACES - 1) {
+			counts[face] = diceLeft;
+			int key = keyOfCounts(counts);
+			int index = next[0]++;
+			INDEX_OF_KEY[key] = (short) index;
+			KEY_OF_INDEX[index] = key;
+			for (int c = ONES; c <= CHANCE; c++) {
+				SCORES[index * ROW + c] = computeScore(c, counts);
+			}
+			return;
+		}
+		for (int n = diceLeft; n >= 0; n--) {
+			counts[face] = n;
+			fillRolls(counts, face + 1, diceLeft - n, next);
+		}
+	}
+
+	/*
+	 * The slow, obvious scoring rules. Only used while filling
+	 * the table, never on the hot path.
+	 */
+	private static int computeScore(int category, int[] counts) {
+		int sum = 0;
+		int maxCount = 0;
+		boolean hasThree = false;
+		boolean hasTwo = false;
+		for (int f = 0; f < N_FACES; f++) {
+			sum += counts[f] * (f + 1);
+			maxCount = Math.max(maxCount, counts[f]);
+			if (counts[f] == 3) {
+				hasThree = true;
+			} else if (counts[f] == 2) {
+				hasTwo = true;
+			}
+		}
+		switch (category) {
+		case ONES:
+		case TWOS:
+		case THREES:
+		case FOURS:
+		case FIVES:
+		case SIXES:
+			return counts[category - 1] * category;
+		case THREE_OF_A_KIND:
+			return maxCount >= 3 ? sum : 0;
+		case FOUR_OF_A_KIND:
+			return maxCount >= 4 ? sum : 0;
+		case FULL_HOUSE:
+			return hasThree && hasTwo ? 25 : 0;
+		case SMALL_STRAIGHT:
+			return longestRun(counts) >= 4 ? 30 : 0;
+		case LARGE_STRAIGHT:
+			return longestRun(counts) >= 5 ? 40 : 0;
+		case YAHTZEE:
+			return maxCount == N_DICE ? 50 : 0;
+		case CHANCE:
+			return sum;
+		default:
+			return 0;
+		}
+	}
+
+	/*
+	 * Length of the longest run of consecutive faces that appear
+	 * at least once, so the order in which dice were rolled does not matter
+	 */
+	private static int longestRun(int[] counts) {
+		int best = 0;
+		int run = 0;
+		for (int f = 0; f < N_FACES; f++) {
+			run = counts[f] > 0 ? run + 1 : 0;
+			best = Math.max(best, run);
+		}
+		return best;
+	}
+
+	private static int keyOfCounts(int[] counts) {
+		int key = 0;
+		for (int f = 0; f < N_FACES; f++) {
+			key |= counts[f] << (BITS_PER_FACE * f);
+		}
+		return key;
+	}
+
+	/**
+	 * Encodes dice values (1..6) as a roll key. Order of dice is ignored.
+	 */
+	public static int encode(int[] dice) {
+		int key = 0;
+		for (int i = 0; i < dice.length; i++) {
+			key += 1 << (BITS_PER_FACE * (dice[i] - 1));
+		}
+		return key;
+	}
+
+	/**
+	 * Returns how many dice of the given face (1..6) the key holds
+	 */
+	public static int count(int key, int face) {
+		return (key >>> (BITS_PER_FACE * (face - 1))) & 7;
+	}
+
+	/**
+	 * Returns the index (0..251) of a five dice roll key
+	 */
+	public static int indexOf(int key) {
+		return INDEX_OF_KEY[key];
+	}
+
+	/**
+	 * Returns the roll key stored under the given index (0..251)
+	 */
+	public static int keyOf(int index) {
+		return KEY_OF_INDEX[index];
+	}
+
+	/**
+	 * Score of the roll with the given index in a category (ONES..CHANCE).
+	 * UPPER_SCORE and UPPER_BONUS are not scoring categories and give 0.
+	 */
+	public static int scoreOfIndex(int index, int category) {
+		return SCORES[index * ROW + category];
+	}
+
+	/**
+	 * Score of the roll key in a category (ONES..CHANCE)
+	 */
+	public static int score(int key, int category) {
+		return SCORES[INDEX_OF_KEY[key] * ROW + category];
+	}
+
+	/**
+	 * Score of the dice in a category (ONES..CHANCE)
+	 */
+	public static int score(int[] dice, int category) {
+		return score(encode(dice), category);
+	}
+
+	/**
+	 * Returns true if category is one of the 13 scoring categories
+	 */
+	public static boolean isScoringCategory(int category) {
+		return category >= ONES && category <= CHANCE && category != UPPER_SCORE && category != UPPER_BONUS;
+	}
+
+	/**
+	 * Maps a scoring category to a bit position 0..12 (ONES..SIXES are 0..5,
+	 * THREE_OF_A_KIND..CHANCE are 6..12), used by category bitmasks
+	 */
+	public static int slotOf(int category) {
+		return category <= SIXES ? category - ONES : category - THREE_OF_A_KIND + SIXES;
+	}
+
+	/**
+	 * Inverse of slotOf
+	 */
+	public static int categoryOf(int slot) {
+		return slot < SIXES ? slot + ONES : slot - SIXES + THREE_OF_A_KIND;
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * File: YahtzeeSimulator.java
+ * ---------------------------
+ * Plays one-player YahtzeeGames, the same rules as the window (13
+ * rounds, three rolls, one category per round, BONUS, falling surprise
+ * and SANTA), with a GamePolicy at the table. An extra that is turned
+ * off is answered as if it were not there. Games are split across
+ * worker threads, each with its own random stream split from one seed,
+ * so a run with the same seed and thread count is reproducible.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import acm.util.ErrorException;
+
+public class YahtzeeSimulator implements YahtzeeConstants2 {
+
+	private final Supplier<GamePolicy> policies;
+	private boolean bonusEnabled = true;
+	private boolean surpriseEnabled = true;
+	private boolean santaEnabled = true;
+	private double catchRate = 0.5;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * policies is asked for one policy per worker thread
+	 */
+	public YahtzeeSimulator(Supplier<GamePolicy> policies) {
+		this.policies = policies;
+	}
+
+	public void setBonusEnabled(boolean enabled) {
+		bonusEnabled = enabled;
+	}
+
+	public void setSurpriseEnabled(boolean enabled) {
+		surpriseEnabled = enabled;
+	}
+
+	public void setSantaEnabled(boolean enabled) {
+		santaEnabled = enabled;
+	}
+
+	/** Chance that a player catches a falling surprise (0..1) */
+	public void setCatchRate(double catchRate) {
+		this.catchRate = catchRate;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Plays games single-player games and returns their merged report
+	 */
+	public SimulationReport run(long games, long seed) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		DiceSource root = DiceSource.seeded(seed);
+		List<Future<SimulationReport>> results = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int w = 0; w < threads; w++) {
+			long share = games / threads + (w < games % threads ? 1 : 0);
+			DiceSource random = root.split();
+			results.add(pool.submit(worker(share, random)));
+		}
+		SimulationReport report = new SimulationReport();
+		try {
+			for (Future<SimulationReport> result : results) {
+				report.merge(result.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ErrorException(e);
+		} catch (ExecutionException e) {
+			throw new ErrorException("Simulation failed: " + e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		report.setElapsedNanos(System.nanoTime() - start);
+		return report;
+	}
+
+	private Callable<SimulationReport> worker(long games, DiceSource random) {
+		return () -> {
+			SimulationReport report = new SimulationReport();
+			SimulatedPlayer player = new SimulatedPlayer(policies.get(), random, report);
+			for (long g = 0; g < games; g++) {
+				player.newGame();
+				new YahtzeeGame(1, random).play(player);
+			}
+			return report;
+		};
+	}
+
+	/*
+	 * The policy's side of a one-player game, adding what BONUS, the
+	 * surprise and SANTA brought to the report once the game is over
+	 */
+	private final class SimulatedPlayer implements GameIO {
+		private final GamePolicy policy;
+		private final DiceSource random;
+		private final SimulationReport report;
+		private Scorecard card;
+		private int bonusGain;
+		private int surpriseGain;
+		private int santaGain;
+
+		SimulatedPlayer(GamePolicy policy, DiceSource random, SimulationReport report) {
+			this.policy = policy;
+			this.random = random;
+			this.report = report;
+		}
+
+		void newGame() {
+			card = new Scorecard(1);
+			bonusGain = 0;
+			surpriseGain = 0;
+			santaGain = 0;
+		}
+
+		@Override
+		public void awaitRoll(int player) {
+		}
+
+		@Override
+		public int chooseReroll(int player, int[] dice, int rerollsLeft) {
+			return policy.chooseReroll(dice, rerollsLeft, card.usedMask(0), card.upper(0));
+		}
+
+		@Override
+		public int chooseCategory(int player, int[] dice, Scorecard card, boolean surprise) {
+			int category = policy.chooseCategory(dice, card.usedMask(0), card.upper(0));
+			if (!YahtzeeScorer.isScoringCategory(category) || card.isUsed(0, category)) {
+				throw new ErrorException("Illegal category " + category);
+			}
+			return category;
+		}
+
+		@Override
+		public boolean useBonus(int player, int category, int[] dice) {
+			int score = YahtzeeScorer.score(dice, category);
+			if (bonusEnabled && policy.useBonus(category, score, Integer.bitCount(card.usedMask(0)))) {
+				bonusGain += score;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean catchSurprise(int player) {
+			if (surpriseEnabled && random.nextDouble() < catchRate) {
+				surpriseGain += SURPRISE_POINTS;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public int santaChoice(int player, int reward) {
+			return santaEnabled && policy.acceptSanta(card.total(0) + card.upperBonus(0)) ? 1 : 0;
+		}
+
+		@Override
+		public void santaResult(int player, int points) {
+			santaGain = points;
+		}
+
+		@Override
+		public void scored(int player, int category, int score, Scorecard card) {
+			this.card = card;
+		}
+
+		@Override
+		public void gameOver(Scorecard card, int[] totals) {
+			report.add(totals[0], bonusGain, surpriseGain, santaGain, card.upperBonus(0) > 0);
+		}
+	}
+
+	/*
+	 * Usage: YahtzeeSimulator [games] [greedy|bot|solver]
+	 * Plays the base rules and then each extra on its own, so their
+	 * effect on the final total can be compared.
+	 */
+	public static void main(String[] args) throws IOException {
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+		Supplier<GamePolicy> policies = GreedyPolicy::new;
+		if (args.length > 1 && args[1].equals("solver")) {
+			YahtzeeSolver solver = YahtzeeSolver.load(new File(YahtzeeSolver.DEFAULT_FILE));
+			policies = () -> new SolverPolicy(solver);
+		} else if (args.length > 1 && args[1].equals("bot")) {
+			policies = BotPolicy::new;
+		}
+		String[] names = { "base", "BONUS", "surprise", "SANTA", "all" };
+		for (int i = 0; i < names.length; i++) {
+			YahtzeeSimulator simulator = new YahtzeeSimulator(policies);
+			simulator.setBonusEnabled(i == 1 || i == 4);
+			simulator.setSurpriseEnabled(i == 2 || i == 4);
+			simulator.setSantaEnabled(i == 3 || i == 4);
+			System.out.println(names[i] + ": " + simulator.run(games, 42));
+		}
+	}
+
+}
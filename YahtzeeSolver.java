@@ -0,0 +1,337 @@
+/*
+ * File: YahtzeeSolver.java
+ * ------------------------
+ * Expected-value-optimal strategy for a single player's 13 rounds.
+ * The solver is a dynamic program over (used categories as a 13-bit
+ * mask, upper section subtotal capped at 63). For each such state it
+ * stores the expected number of points still to come, including the
+ * 35-point upper bonus. The table is computed once with fork/join,
+ * written to a small binary file and memory-mapped on later runs.
+ *
+ * The free BONUS doubling, the falling surprise and SANTA are not part
+ * of the solved rules, they are luck or one-shot extras on top of it.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public final class YahtzeeSolver implements YahtzeeConstants2 {
+
+/** File the table is stored in when no other file is given */
+	public static final String DEFAULT_FILE = "yahtzee-solver.bin";
+
+/** The number of used-category masks */
+	public static final int N_MASKS = 1 << N_SCORING_CATEGORIES;
+
+/** Mask with every scoring category used */
+	public static final int FULL_MASK = N_MASKS - 1;
+
+/** The number of (mask, upper subtotal) states */
+	public static final int N_STATES = N_MASKS * (UPPER_BONUS_THRESHOLD + 1);
+
+	private static final int UPPER_SLOTS = (1 << SIXES) - 1;
+	private static final int MAGIC = 0x59535456; // "YSTV"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int LEAF_MASKS = 16;
+
+	/* expected remaining points, indexed by state(mask, upper) */
+	private final FloatBuffer values;
+
+	private YahtzeeSolver(FloatBuffer values) {
+		this.values = values;
+	}
+
+	/**
+	 * Memory-maps the table stored in file. If the file does not exist yet
+	 * the table is computed and written first.
+	 */
+	public static YahtzeeSolver load(File file) throws IOException {
+		if (!file.exists()) {
+			write(file, compute());
+		}
+		return map(file);
+	}
+
+	/**
+	 * Index of a state in the value table
+	 */
+	public static int state(int usedMask, int upper) {
+		return usedMask * (UPPER_BONUS_THRESHOLD + 1) + Math.min(upper, UPPER_BONUS_THRESHOLD);
+	}
+
+	/**
+	 * Expected points still to come from a state, playing optimally
+	 */
+	public float expectedValue(int usedMask, int upper) {
+		return values.get(state(usedMask, upper));
+	}
+
+	/**
+	 * Category (ONES..CHANCE) that maximizes the expected final score
+	 * when the player stops with rollKey
+	 */
+	public int bestCategory(int rollKey, int usedMask, int upper) {
+		int roll = YahtzeeScorer.indexOf(rollKey);
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+			if ((usedMask & (1 << slot)) == 0) {
+				double value = categoryValue(roll, slot, usedMask, upper);
+				if (value > bestValue) {
+					bestValue = value;
+					best = slot;
+				}
+			}
+		}
+		return YahtzeeScorer.categoryOf(best);
+	}
+
+	/**
+	 * Keep index (see DiceTransitions) that maximizes the expected final
+	 * score for rollKey with rerollsLeft (1 or 2) rolls still allowed.
+	 * Keeping all five dice means stopping.
+	 */
+	public int bestKeep(int rollKey, int rerollsLeft, int usedMask, int upper, Scratch scratch) {
+		keepValues(usedMask, upper, rerollsLeft, scratch);
+		int roll = YahtzeeScorer.indexOf(rollKey);
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int i = DiceTransitions.rollKeepStart(roll); i < DiceTransitions.rollKeepEnd(roll); i++) {
+			int keep = DiceTransitions.rollKeep(i);
+			if (scratch.keepValues[keep] > bestValue) {
+				bestValue = scratch.keepValues[keep];
+				best = keep;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Fills scratch.keepValues with the expected final score of holding each
+	 * keep and rolling again when rerollsLeft rolls remain (1 or 2)
+	 */
+	public void keepValues(int usedMask, int upper, int rerollsLeft, Scratch scratch) {
+		double[] rollValues = scratch.rollValues;
+		double[] keepValues = scratch.keepValues;
+		stopValues(usedMask, upper, rollValues);
+		for (int level = 0; level < rerollsLeft; level++) {
+			if (level > 0) {
+				bestKeepPerRoll(keepValues, rollValues);
+			}
+			for (int k = 0; k < DiceTransitions.N_KEEPS; k++) {
+				keepValues[k] = DiceTransitions.expected(k, rollValues);
+			}
+		}
+	}
+
+	/*
+	 * Expected value of a whole turn started in state (mask, upper):
+	 * first roll, two optional rerolls, then a category
+	 */
+	private double turnValue(int usedMask, int upper, Scratch scratch) {
+		keepValues(usedMask, upper, 2, scratch);
+		bestKeepPerRoll(scratch.keepValues, scratch.rollValues);
+		return DiceTransitions.expected(DiceTransitions.EMPTY_KEEP, scratch.rollValues);
+	}
+
+	private void stopValues(int usedMask, int upper, double[] rollValues) {
+		for (int r = 0; r < YahtzeeScorer.N_ROLLS; r++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for (int slot = 0; slot < N_SCORING_CATEGORIES; slot++) {
+				if ((usedMask & (1 << slot)) == 0) {
+					best = Math.max(best, categoryValue(r, slot, usedMask, upper));
+				}
+			}
+			rollValues[r] = best;
+		}
+	}
+
+	private static void bestKeepPerRoll(double[] keepValues, double[] rollValues) {
+		for (int r = 0; r < YahtzeeScorer.N_ROLLS; r++) {
+			double best = Double.NEGATIVE_INFINITY;
+			for (int i = DiceTransitions.rollKeepStart(r); i < DiceTransitions.rollKeepEnd(r); i++) {
+				best = Math.max(best, keepValues[DiceTransitions.rollKeep(i)]);
+			}
+			rollValues[r] = best;
+		}
+	}
+
+	/*
+	 * Points for scoring roll in slot now (plus upper bonus if it is
+	 * reached right now), plus what the resulting state is worth
+	 */
+	private double categoryValue(int roll, int slot, int usedMask, int upper) {
+		int points = YahtzeeScorer.scoreOfIndex(roll, YahtzeeScorer.categoryOf(slot));
+		int newUpper = upper;
+		if (slot < SIXES) {
+			newUpper = Math.min(UPPER_BONUS_THRESHOLD, upper + points);
+			if (upper < UPPER_BONUS_THRESHOLD && newUpper == UPPER_BONUS_THRESHOLD) {
+				points += UPPER_BONUS_POINTS;
+			}
+		}
+		return points + values.get(state(usedMask | (1 << slot), newUpper));
+	}
+
+	/*
+	 * Solves every state, layer by layer from full scorecards down to
+	 * the empty one. States within a layer only depend on later layers,
+	 * so each layer is split across cores.
+	 */
+	static float[] compute() {
+		float[] table = new float[N_STATES];
+		YahtzeeSolver solver = new YahtzeeSolver(FloatBuffer.wrap(table));
+		boolean[][] reachable = reachableUpper();
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (int used = N_SCORING_CATEGORIES - 1; used >= 0; used--) {
+			int[] masks = masksWithBits(used);
+			pool.invoke(new LayerTask(solver, table, reachable, masks, 0, masks.length));
+		}
+		return table;
+	}
+
+	private static int[] masksWithBits(int bits) {
+		int n = 0;
+		for (int mask = 0; mask < N_MASKS; mask++) {
+			if (Integer.bitCount(mask) == bits) {
+				n++;
+			}
+		}
+		int[] masks = new int[n];
+		n = 0;
+		for (int mask = 0; mask < N_MASKS; mask++) {
+			if (Integer.bitCount(mask) == bits) {
+				masks[n++] = mask;
+			}
+		}
+		return masks;
+	}
+
+	/*
+	 * reachable[upperMask][s] is true if capped subtotal s can be reached
+	 * having used exactly the upper categories in upperMask. Other states
+	 * never occur in a game and are left at 0.
+	 */
+	private static boolean[][] reachableUpper() {
+		boolean[][] reachable = new boolean[UPPER_SLOTS + 1][UPPER_BONUS_THRESHOLD + 1];
+		reachable[0][0] = true;
+		for (int mask = 1; mask <= UPPER_SLOTS; mask++) {
+			int face = Integer.numberOfTrailingZeros(mask) + 1;
+			boolean[] previous = reachable[mask & (mask - 1)];
+			for (int s = 0; s <= UPPER_BONUS_THRESHOLD; s++) {
+				if (previous[s]) {
+					for (int n = 0; n <= N_DICE; n++) {
+						reachable[mask][Math.min(UPPER_BONUS_THRESHOLD, s + n * face)] = true;
+					}
+				}
+			}
+		}
+		return reachable;
+	}
+
+	@SuppressWarnings("serial")
+	private static class LayerTask extends RecursiveAction {
+		private final YahtzeeSolver solver;
+		private final float[] table;
+		private final boolean[][] reachable;
+		private final int[] masks;
+		private final int from, to;
+
+		LayerTask(YahtzeeSolver solver, float[] table, boolean[][] reachable, int[] masks, int from, int to) {
+			this.solver = solver;
+			this.table = table;
+			this.reachable = reachable;
+			this.masks = masks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > LEAF_MASKS) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new LayerTask(solver, table, reachable, masks, from, middle),
+						new LayerTask(solver, table, reachable, masks, middle, to));
+				return;
+			}
+			Scratch scratch = new Scratch();
+			for (int i = from; i < to; i++) {
+				int mask = masks[i];
+				boolean[] upperReachable = reachable[mask & UPPER_SLOTS];
+				for (int upper = 0; upper <= UPPER_BONUS_THRESHOLD; upper++) {
+					if (upperReachable[upper]) {
+						table[state(mask, upper)] = (float) solver.turnValue(mask, upper, scratch);
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Writes header and table to a temporary file and moves it into
+	 * place, so a crash never leaves a half written table behind
+	 */
+	static void write(File file, float[] table) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile("yahtzee-solver", ".tmp", parent);
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + table.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(table.length).putInt(0);
+		buffer.asFloatBuffer().put(table);
+		buffer.rewind();
+		try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static YahtzeeSolver map(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			if (channel.size() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+					|| mapped.getInt(8) != N_STATES || channel.size() != HEADER_BYTES + N_STATES * 4L) {
+				throw new IOException("Not a solver table: " + file);
+			}
+			mapped.position(HEADER_BYTES);
+			return new YahtzeeSolver(mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+		}
+	}
+
+	/**
+	 * Per-thread work arrays for the decision methods, so they do not allocate
+	 */
+	public static final class Scratch {
+		final double[] rollValues = new double[YahtzeeScorer.N_ROLLS];
+		final double[] keepValues = new double[DiceTransitions.N_KEEPS];
+
+		/** Value of keep k after the last keepValues/bestKeep call */
+		public double keepValue(int keep) {
+			return keepValues[keep];
+		}
+	}
+
+	/*
+	 * Loads (or computes) the table and prints the expected score of a game
+	 */
+	public static void main(String[] args) throws IOException {
+		File file = new File(args.length > 0 ? args[0] : DEFAULT_FILE);
+		long start = System.nanoTime();
+		YahtzeeSolver solver = load(file);
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("Expected score %.3f (ready in %.1f ms)%n", solver.expectedValue(0, 0), elapsed / 1e6);
+	}
+
+}
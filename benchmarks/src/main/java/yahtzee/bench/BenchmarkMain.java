@@ -0,0 +1,37 @@
+/*
+ * File: BenchmarkMain.java
+ * ------------------------
+ * Runs the benchmarks with the GC profiler attached, so every result
+ * comes with its allocation rate (gc.alloc.rate.norm is bytes per op).
+ * Arguments are a regex of benchmarks to run and, optionally, a file
+ * to write JSON results to for comparing against a saved baseline.
+ */
+
+package yahtzee.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "yahtzee.bench.*")
+				.addProfiler(GCProfiler.class)
+				.forks(1)
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(1))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(1));
+		if (args.length > 1) {
+			options.resultFormat(ResultFormatType.JSON).result(args[1]);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * File: DiceBenchmark.java
+ * ------------------------
+ * generateRandomDiceValues and rollAgain as the game does them (one
+ * nextInt(1, 6) call per die) under different random generators.
+ * acm's RandomGenerator is a java.util.Random subclass, so "Random"
+ * is today's cost.
+ */
+
+package yahtzee.bench;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiceBenchmark {
+
+	@Param({ "Random", "SplittableRandom", "ThreadLocalRandom" })
+	public String generator;
+
+	private final int[] dice = new int[5];
+	private IntSupplier die;
+	private int mask;
+
+	/*
+	 * Picks the generator once, so the measured loops only call it.
+	 * acm RandomGenerator.nextInt(low, high) is low + nextInt(high - low + 1).
+	 */
+	@Setup
+	public void createGenerator() {
+		switch (generator) {
+		case "Random":
+			Random random = new Random(42);
+			die = () -> 1 + random.nextInt(6);
+			break;
+		case "SplittableRandom":
+			SplittableRandom splittable = new SplittableRandom(42);
+			die = () -> 1 + splittable.nextInt(6);
+			break;
+		default:
+			die = () -> 1 + ThreadLocalRandom.current().nextInt(6);
+		}
+	}
+
+	private int nextDie() {
+		return die.getAsInt();
+	}
+
+	@Benchmark
+	public int[] generateRandomDiceValues() {
+		for (int i = 0; i < dice.length; i++) {
+			dice[i] = nextDie();
+		}
+		return dice;
+	}
+
+	/* cycles through all 32 reroll selections */
+	@Benchmark
+	public int[] rollAgain() {
+		mask = (mask + 1) & 31;
+		for (int n = 0; n < dice.length; n++) {
+			if ((mask & (1 << n)) != 0) {
+				dice[n] = nextDie();
+			}
+		}
+		return dice;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * File: LegacyScoring.java
+ * ------------------------
+ * The category checks exactly as YahtzeeExtension had them before the
+ * table-driven YahtzeeScorer, kept here as the baseline the new engine
+ * is measured against. Do not optimize this class.
+ */
+
+package yahtzee.bench;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class LegacyScoring {
+
+	public int score = 0;
+
+	public void checkNumOfAKind(int num, int[] dice) {
+		HashMap<Integer, Integer> frequencyMap = new HashMap<>();
+		// counting frequency of dice values
+		for (int diceValue : dice) {
+			frequencyMap.put(diceValue, frequencyMap.getOrDefault(diceValue, 0) + 1);
+			if (frequencyMap.get(diceValue) >= num) {
+				getScore(dice);
+				break;
+			}
+		}
+	}
+
+	public void checkFullHouse(int[] dice) {
+		HashMap<Integer, Integer> frequencyMap = new HashMap<>();
+		for (int diceValue : dice) {
+			frequencyMap.put(diceValue, frequencyMap.getOrDefault(diceValue, 0) + 1);
+		}
+		checkFrequencySatisfaction(frequencyMap);
+	}
+
+	private void checkFrequencySatisfaction(HashMap<Integer, Integer> list) {
+		boolean frequencyOfThree = false;
+		boolean frequencyOfTwo = false;
+		for (int frequency : list.values()) {
+			if (frequency == 3) {
+				frequencyOfThree = true;
+			} else if (frequency == 2) {
+				frequencyOfTwo = true;
+			}
+		}
+		if (frequencyOfThree && frequencyOfTwo) {
+			score = 25;
+		}
+	}
+
+	public boolean diceHasLargeStraight(int[] dice) {
+		int[][] allPossibleLargeStraights = new int[4][dice.length];
+		fillWithLargeStraights(allPossibleLargeStraights);
+		for (int[] largeStraight : allPossibleLargeStraights) {
+			if (Arrays.equals(dice, largeStraight)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void fillWithLargeStraights(int[][] allPossibleLargeStraights) {
+		allPossibleLargeStraights[0] = new int[] { 1, 2, 3, 4, 5 };
+		allPossibleLargeStraights[1] = new int[] { 2, 3, 4, 5, 6 };
+		allPossibleLargeStraights[2] = new int[] { 5, 4, 3, 2, 1 };
+		allPossibleLargeStraights[3] = new int[] { 6, 5, 4, 3, 2 };
+	}
+
+	public boolean diceHasSmallStraight(int[] dice) {
+		int[][] allPossibleSmallStraights = new int[6][dice.length - 1];
+		fillWithSmallStraights(allPossibleSmallStraights);
+		for (int[] smallStraight : allPossibleSmallStraights) {
+			if (Arrays.equals(Arrays.copyOfRange(dice, 0, dice.length - 1), smallStraight) ||
+					Arrays.equals(Arrays.copyOfRange(dice, 1, dice.length), smallStraight)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void fillWithSmallStraights(int[][] allPossibleSmallStraights) {
+		allPossibleSmallStraights[0] = new int[] { 1, 2, 3, 4 };
+		allPossibleSmallStraights[1] = new int[] { 2, 3, 4, 5 };
+		allPossibleSmallStraights[2] = new int[] { 3, 4, 5, 6 };
+		allPossibleSmallStraights[3] = new int[] { 4, 3, 2, 1 };
+		allPossibleSmallStraights[4] = new int[] { 5, 4, 3, 2 };
+		allPossibleSmallStraights[5] = new int[] { 6, 5, 4, 3 };
+	}
+
+	private void getScore(int[] dice) {
+		for (int diceValue : dice) {
+			score += diceValue;
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * File: ScoringBenchmark.java
+ * ---------------------------
+ * Scores every one of the 6^5 = 7776 ordered rolls per invocation, once
+ * with the legacy HashMap / Arrays.equals checks and once with the
+ * YahtzeeScorer table. Results are per roll.
+ */
+
+package yahtzee.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ScoringBenchmark.N_ROLLS)
+public class ScoringBenchmark {
+
+	static final int N_ROLLS = 7776;
+
+	/* category ids from YahtzeeConstants2 */
+	private static final int THREE_OF_A_KIND = 9;
+	private static final int FOUR_OF_A_KIND = 10;
+	private static final int FULL_HOUSE = 11;
+	private static final int SMALL_STRAIGHT = 12;
+	private static final int LARGE_STRAIGHT = 13;
+
+	private final int[][] rolls = new int[N_ROLLS][5];
+	private final LegacyScoring legacy = new LegacyScoring();
+
+	@Setup
+	public void allRolls() {
+		for (int i = 0; i < N_ROLLS; i++) {
+			int code = i;
+			for (int n = 0; n < 5; n++) {
+				rolls[i][n] = 1 + code % 6;
+				code /= 6;
+			}
+		}
+	}
+
+	@Benchmark
+	public int legacyThreeOfAKind() {
+		legacy.score = 0;
+		for (int[] dice : rolls) {
+			legacy.checkNumOfAKind(3, dice);
+		}
+		return legacy.score;
+	}
+
+	@Benchmark
+	public int legacyFourOfAKind() {
+		legacy.score = 0;
+		for (int[] dice : rolls) {
+			legacy.checkNumOfAKind(4, dice);
+		}
+		return legacy.score;
+	}
+
+	@Benchmark
+	public int legacyFullHouse() {
+		legacy.score = 0;
+		for (int[] dice : rolls) {
+			legacy.checkFullHouse(dice);
+		}
+		return legacy.score;
+	}
+
+	@Benchmark
+	public int legacySmallStraight() {
+		int found = 0;
+		for (int[] dice : rolls) {
+			if (legacy.diceHasSmallStraight(dice)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int legacyLargeStraight() {
+		int found = 0;
+		for (int[] dice : rolls) {
+			if (legacy.diceHasLargeStraight(dice)) {
+				found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int tableThreeOfAKind() {
+		return tableSum(THREE_OF_A_KIND);
+	}
+
+	@Benchmark
+	public int tableFourOfAKind() {
+		return tableSum(FOUR_OF_A_KIND);
+	}
+
+	@Benchmark
+	public int tableFullHouse() {
+		return tableSum(FULL_HOUSE);
+	}
+
+	@Benchmark
+	public int tableSmallStraight() {
+		return tableSum(SMALL_STRAIGHT);
+	}
+
+	@Benchmark
+	public int tableLargeStraight() {
+		return tableSum(LARGE_STRAIGHT);
+	}
+
+	private int tableSum(int category) {
+		int sum = 0;
+		for (int[] dice : rolls) {
+			sum += Engine.score(Engine.encode(dice), category);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * File: TotalsBenchmark.java
+ * --------------------------
+ * The TOTAL update done after every category selection: upperScore and
+ * lowerScore rescan the player's row of totalScores each time.
+ */
+
+package yahtzee.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TotalsBenchmark {
+
+	/* values from YahtzeeConstants2 */
+	private static final int MAX_PLAYERS = 4;
+	private static final int N_CATEGORIES = 17;
+	private static final int ONES = 1;
+	private static final int SIXES = 6;
+	private static final int THREE_OF_A_KIND = 9;
+	private static final int CHANCE = 15;
+
+	private final int[][] totalScores = new int[MAX_PLAYERS][N_CATEGORIES];
+	private int playerIndex;
+
+	@Setup
+	public void fillScores() {
+		for (int p = 0; p < MAX_PLAYERS; p++) {
+			for (int c = 0; c < N_CATEGORIES; c++) {
+				totalScores[p][c] = (p * 7 + c * 3) % 31;
+			}
+		}
+	}
+
+	@Benchmark
+	public int recomputeTotal() {
+		playerIndex = (playerIndex + 1) % MAX_PLAYERS;
+		return upperScore(playerIndex) + lowerScore(playerIndex);
+	}
+
+	private int upperScore(int row) {
+		int num = 0;
+		for (int c = ONES; c <= SIXES; c++) {
+			num += totalScores[row][c - 1];
+		}
+		return num;
+	}
+
+	private int lowerScore(int row) {
+		int num = 0;
+		for (int c = THREE_OF_A_KIND; c <= CHANCE; c++) {
+			num += totalScores[row][c - 1];
+		}
+		return num;
+	}
+
+}